@@ -0,0 +1,15 @@
+#!/bin/sh
+# Builds the JMH benchmarks and runs them. The results are written as JSON to
+# results.json. On Java 16 and later the jdk.incubator.vector module is added
+# (the forks inherit it) so that nlug-simd uses its SIMD kernel. Extra
+# arguments are passed to JMH, for example:
+#
+#   ./run.sh AdvanceBenchmark -p bodies=1000,10000 -p forceLaws=nlug
+#
+cd "$(dirname "$0")" || exit 1
+mvn -B -q package || exit 1
+VECTOR_OPTS=
+if java --add-modules jdk.incubator.vector -version >/dev/null 2>&1; then
+	VECTOR_OPTS="--add-modules jdk.incubator.vector"
+fi
+exec java $VECTOR_OPTS -jar target/benchmarks.jar -rf json -rff results.json "$@"
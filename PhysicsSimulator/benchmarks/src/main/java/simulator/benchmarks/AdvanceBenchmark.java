@@ -0,0 +1,73 @@
+package simulator.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulator.factories.Factory;
+import simulator.model.Body;
+import simulator.model.PhysicsSimulator;
+
+/*
+ * Coste de un PhysicsSimulator.advance() para cada ley de fuerza y numero de
+ * cuerpos. El simulador se vuelve a crear en cada iteracion para que todas
+ * midan el mismo estado de partida; los datos de los cuerpos se generan una
+ * sola vez y se anaden de golpe con addBodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class AdvanceBenchmark {
+
+	@Param({ "10", "100", "1000", "10000", "100000" })
+	public int bodies;
+
+	@Param({ "nlug", "nlug-simd", "mtfp", "ng" })
+	public String forceLaws;
+
+	@Param({ "2500.0" })
+	public double dt;
+
+	private JSONArray bodiesJSON;
+	private PhysicsSimulator sim;
+
+	@Setup(Level.Trial)
+	public void createBodies() {
+		bodiesJSON = Scenarios.bodiesJSON(bodies);
+	}
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		Factory<Body> bf = Scenarios.bodyFactory();
+		List<Body> bs = new ArrayList<>(bodiesJSON.length());
+		for(int i = 0; i < bodiesJSON.length(); i++) {
+			bs.add(bf.createInstance(bodiesJSON.getJSONObject(i)));
+		}
+
+		sim = new PhysicsSimulator(Scenarios.forceLaws(forceLaws), dt);
+		sim.addBodies(bs);
+	}
+
+	@Benchmark
+	public PhysicsSimulator advance() {
+		sim.advance();
+		return sim;
+	}
+}
@@ -0,0 +1,49 @@
+package simulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import simulator.factories.Factory;
+import simulator.model.Body;
+
+// coste de crear los cuerpos de un fichero con BuilderBasedFactory.createInstance
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class FactoryBenchmark {
+
+	@Param({ "10", "100", "1000", "10000", "100000" })
+	public int bodies;
+
+	private Factory<Body> factory;
+	private JSONArray json;
+
+	@Setup
+	public void setUp() {
+		factory = Scenarios.bodyFactory();
+		json = Scenarios.bodiesJSON(bodies);
+	}
+
+	@Benchmark
+	public void createInstance(Blackhole bh) {
+		for(int i = 0; i < json.length(); i++) {
+			bh.consume(factory.createInstance(json.getJSONObject(i)));
+		}
+	}
+}
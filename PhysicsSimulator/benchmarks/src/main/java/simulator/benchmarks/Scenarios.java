@@ -0,0 +1,81 @@
+package simulator.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import simulator.factories.BarnesHutGravitationBuilder;
+import simulator.factories.BasicBodyBuilder;
+import simulator.factories.Builder;
+import simulator.factories.BuilderBasedFactory;
+import simulator.factories.Factory;
+import simulator.factories.MassLosingBodyBuilder;
+import simulator.factories.MovingTowardsFixedPointBuilder;
+import simulator.factories.NewtonUniversalGravitationBuilder;
+import simulator.factories.NoForceBuilder;
+import simulator.factories.SimdGravitationBuilder;
+import simulator.model.Body;
+import simulator.model.ForceLaws;
+
+// escenarios reproducibles para los benchmarks (semilla fija)
+final class Scenarios {
+
+	static final long SEED = 42;
+
+	private Scenarios() {
+	}
+
+	static Factory<Body> bodyFactory() {
+		List<Builder<Body>> builders = new ArrayList<>();
+		builders.add(new BasicBodyBuilder());
+		builders.add(new MassLosingBodyBuilder());
+		return new BuilderBasedFactory<Body>(builders);
+	}
+
+	static Factory<ForceLaws> forceLawsFactory() {
+		List<Builder<ForceLaws>> builders = new ArrayList<>();
+		builders.add(new NewtonUniversalGravitationBuilder());
+		builders.add(new BarnesHutGravitationBuilder());
+		builders.add(new SimdGravitationBuilder());
+		builders.add(new MovingTowardsFixedPointBuilder());
+		builders.add(new NoForceBuilder());
+		return new BuilderBasedFactory<ForceLaws>(builders);
+	}
+
+	static ForceLaws forceLaws(String type) {
+		JSONObject info = new JSONObject();
+		info.put("type", type);
+		info.put("data", new JSONObject());
+		return forceLawsFactory().createInstance(info);
+	}
+
+	// n cuerpos en un disco gaussiano, uno de cada diez pierde masa
+	static JSONArray bodiesJSON(int n) {
+		Random r = new Random(SEED);
+		JSONArray bodies = new JSONArray();
+
+		for(int i = 0; i < n; i++) {
+			JSONObject data = new JSONObject();
+			data.put("id", "b" + i);
+			data.put("p", new JSONArray().put(r.nextGaussian() * 1e11).put(r.nextGaussian() * 1e11));
+			data.put("v", new JSONArray().put(r.nextGaussian() * 1e4).put(r.nextGaussian() * 1e4));
+			data.put("m", 1e28 * (1 + r.nextDouble()));
+
+			JSONObject b = new JSONObject();
+			if(i % 10 == 0) {
+				data.put("freq", 1e5);
+				data.put("factor", 1e-3);
+				b.put("type", "mlb");
+			}
+			else {
+				b.put("type", "basic");
+			}
+			b.put("data", data);
+			bodies.put(b);
+		}
+		return bodies;
+	}
+}
@@ -0,0 +1,80 @@
+package simulator.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulator.control.JSONStateWriter;
+import simulator.factories.Factory;
+import simulator.model.Body;
+import simulator.model.NoForce;
+import simulator.model.PhysicsSimulator;
+
+/*
+ * Coste de serializar un estado: PhysicsSimulator.getState().toString() frente
+ * a JSONStateWriter, los dos escribiendo a un stream que descarta los bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class StateBenchmark {
+
+	@Param({ "10", "100", "1000", "10000", "100000" })
+	public int bodies;
+
+	private PhysicsSimulator sim;
+	private JSONStateWriter writer;
+
+	@Setup
+	public void setUp() throws IOException {
+		Factory<Body> bf = Scenarios.bodyFactory();
+		JSONArray bs = Scenarios.bodiesJSON(bodies);
+
+		sim = new PhysicsSimulator(new NoForce(), 2500.0);
+		for(int i = 0; i < bs.length(); i++) {
+			sim.addBody(bf.createInstance(bs.getJSONObject(i)));
+		}
+
+		writer = new JSONStateWriter(new NullOutputStream());
+		writer.begin();
+	}
+
+	@Benchmark
+	public String getState() {
+		JSONObject j = sim.getState();
+		return j.toString();
+	}
+
+	@Benchmark
+	public JSONStateWriter writeState() throws IOException {
+		writer.writeState(sim);
+		return writer;
+	}
+
+	private static class NullOutputStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+}
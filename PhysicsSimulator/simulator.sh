@@ -0,0 +1,86 @@
+#!/bin/sh
+# Runs the simulator from the jar built with "mvn package", for example:
+#
+#   ./simulator.sh -m batch -i resources/examples/ex1.2body.json -o out.json -s 10000
+#
+# The JVM flags can be changed with these variables:
+#
+#   SIM_HEAP       maximum heap size (-Xmx), default 4g
+#   SIM_PRETOUCH   if set to 1 the whole heap is committed and touched at
+#                  start (-Xms equal to -Xmx and -XX:+AlwaysPreTouch), which
+#                  avoids page faults in long batch runs with many bodies
+#   SIM_GC_OPTS    garbage collector flags, default the parallel collector
+#   SIM_JAVA_OPTS  any other JVM flags
+#
+# Relative paths given to -i, -o and -eo (also in the --input=path and
+# -i=path forms) are relative to the directory the script is run from. A
+# path glued to the option (-ipath) is not rewritten and is read relative to
+# the directory of the script.
+#
+# On Java 16 and later the jdk.incubator.vector module is added so that the
+# nlug-simd force law can use its SIMD kernel (the JVM then prints a warning
+# about incubator modules).
+#
+# The parallel collector gives the best throughput for batch mode; for the
+# GUI, SIM_GC_OPTS=-XX:+UseG1GC gives shorter pauses.
+
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/physics-simulator.jar"
+
+if [ ! -f "$JAR" ]; then
+	echo "$JAR not found, build it with: mvn package" >&2
+	exit 1
+fi
+
+SIM_HEAP="${SIM_HEAP:-4g}"
+SIM_GC_OPTS="${SIM_GC_OPTS:--XX:+UseParallelGC}"
+
+HEAP_OPTS="-Xmx$SIM_HEAP"
+if [ "$SIM_PRETOUCH" = 1 ]; then
+	HEAP_OPTS="-Xms$SIM_HEAP $HEAP_OPTS -XX:+AlwaysPreTouch"
+fi
+
+VECTOR_OPTS=""
+if java --add-modules jdk.incubator.vector -version >/dev/null 2>&1; then
+	VECTOR_OPTS="--add-modules jdk.incubator.vector"
+fi
+
+# the file arguments are made absolute before changing directory (the
+# arguments are rotated through "$@" so that spaces in them are kept)
+n=$#
+while [ "$n" -gt 0 ]; do
+	a="$1"
+	shift
+	n=$((n - 1))
+	case "$a" in
+	-i=*|--input=*|-o=*|--output=*|-eo=*|--expected-output=*)
+		f="${a#*=}"
+		case "$f" in
+		/*|"") ;;
+		*) f="$PWD/$f" ;;
+		esac
+		set -- "$@" "${a%%=*}=$f"
+		;;
+	-i|--input|-o|--output|-eo|--expected-output)
+		set -- "$@" "$a"
+		if [ "$n" -gt 0 ]; then
+			f="$1"
+			shift
+			n=$((n - 1))
+			case "$f" in
+			/*) ;;
+			*) f="$PWD/$f" ;;
+			esac
+			set -- "$@" "$f"
+		fi
+		;;
+	*)
+		set -- "$@" "$a"
+		;;
+	esac
+done
+
+# the GUI loads the icons from resources/, relative to the working directory
+cd "$DIR" || exit 1
+
+exec java $HEAP_OPTS $SIM_GC_OPTS $VECTOR_OPTS $SIM_JAVA_OPTS -jar "$JAR" "$@"
@@ -0,0 +1,68 @@
+package simulator.model;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * Nucleo de SimdGravitation con la API de vectores: para cada cuerpo i se
+ * cargan las posiciones y masas de LANES fuentes j seguidas y se acumulan
+ * mj*d/|d|^3 en vectores, que se suman al final. Las ultimas ns % LANES
+ * fuentes se hacen de una en una. Las parejas a distancia 0 (el propio i)
+ * se anulan con una mascara.
+ *
+ * Se carga por reflexion desde SimdGravitation; si falta el modulo
+ * jdk.incubator.vector la carga falla y se calcula como nlug.
+ */
+class SimdGravityKernel implements GravityKernel {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	@Override
+	public void forces(double g, double[] sx, double[] sy, double[] sm, int ns, BodyStore bs, int from, int to) {
+		int bound = SPECIES.loopBound(ns);
+		double[] px = bs.px, py = bs.py, m = bs.mass;
+		DoubleVector zero = DoubleVector.zero(SPECIES);
+
+		for(int i = from; i < to; i++) {
+			if(m[i] != 0) {
+				double xi = px[i], yi = py[i];
+				DoubleVector vxi = DoubleVector.broadcast(SPECIES, xi);
+				DoubleVector vyi = DoubleVector.broadcast(SPECIES, yi);
+				DoubleVector vax = zero, vay = zero;
+
+				int j = 0;
+				for(; j < bound; j += SPECIES.length()) {
+					DoubleVector dx = DoubleVector.fromArray(SPECIES, sx, j).sub(vxi);
+					DoubleVector dy = DoubleVector.fromArray(SPECIES, sy, j).sub(vyi);
+					DoubleVector d2 = dx.fma(dx, dy.mul(dy));
+					VectorMask<Double> same = d2.eq(0);
+					DoubleVector w = DoubleVector.fromArray(SPECIES, sm, j).div(d2.mul(d2.sqrt())).blend(zero, same);
+					vax = dx.fma(w, vax);
+					vay = dy.fma(w, vay);
+				}
+				double ax = vax.reduceLanes(VectorOperators.ADD);
+				double ay = vay.reduceLanes(VectorOperators.ADD);
+
+				for(; j < ns; j++) {
+					double dx = sx[j] - xi;
+					double dy = sy[j] - yi;
+					double d2 = dx*dx + dy*dy;
+					if(d2 != 0) {
+						double w = sm[j] / (d2 * Math.sqrt(d2));
+						ax += w * dx;
+						ay += w * dy;
+					}
+				}
+				bs.fx[i] += g * m[i] * ax;
+				bs.fy[i] += g * m[i] * ay;
+			}
+		}
+	}
+
+	@Override
+	public int lanes() {
+		return SPECIES.length();
+	}
+}
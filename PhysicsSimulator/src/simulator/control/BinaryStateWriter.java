@@ -0,0 +1,128 @@
+package simulator.control;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import simulator.model.BodyStore;
+import simulator.model.PhysicsSimulator;
+
+/*
+ * Escribe la trayectoria en formato binario (todos los numeros little-endian):
+ *
+ *   cabecera: int MAGIC, int VERSION, int n,
+ *             n veces: int longitud del id, bytes del id en UTF-8, double masa inicial
+ *   frames:   double tiempo,
+ *             n veces: double m, px, py, vx, vy, fx, fy
+ *
+ * Todos los frames tienen el mismo tamano (8 + 56n bytes), asi que
+ * BinaryStatesReader puede acceder a cualquier paso sin leer los anteriores.
+ * La masa se guarda tambien en cada frame porque puede cambiar (mlb).
+ */
+public class BinaryStateWriter implements StateWriter {
+
+	public static final int MAGIC = 0x50534254; // "PSBT"
+	public static final int VERSION = 1;
+	public static final int FRAME_HEADER_BYTES = 8;
+	public static final int BODY_BYTES = 7 * 8;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private WritableByteChannel _out;
+	private ByteBuffer _buffer;
+	private int _numBodies; // -1 hasta escribir la cabecera
+
+	public BinaryStateWriter(OutputStream out) {
+		this._out = Channels.newChannel(out);
+		this._buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		this._numBodies = -1;
+	}
+
+	@Override
+	public void begin() throws IOException {
+		// la cabecera se escribe con el primer estado, cuando se conocen los cuerpos
+	}
+
+	@Override
+	public void writeState(PhysicsSimulator sim) throws IOException {
+		BodyStore bs = sim.getBodyStore();
+
+		if(_numBodies < 0) {
+			writeHeader(sim, bs);
+		}
+		else if(bs.size() != _numBodies) {
+			throw new IOException("El numero de cuerpos no puede cambiar en una trayectoria binaria");
+		}
+
+		putDouble(sim.getTime());
+		for(int k = 0; k < _numBodies; k++) {
+			int i = sim.getHandleAt(k);
+			ensure(BODY_BYTES);
+			_buffer.putDouble(bs.getMass(i));
+			_buffer.putDouble(bs.getPositionX(i));
+			_buffer.putDouble(bs.getPositionY(i));
+			_buffer.putDouble(bs.getVelocityX(i));
+			_buffer.putDouble(bs.getVelocityY(i));
+			_buffer.putDouble(bs.getForceX(i));
+			_buffer.putDouble(bs.getForceY(i));
+		}
+	}
+
+	// los cuerpos van en el orden de getState(), no en el del almacen
+	private void writeHeader(PhysicsSimulator sim, BodyStore bs) throws IOException {
+		_numBodies = bs.size();
+
+		ensure(12);
+		_buffer.putInt(MAGIC);
+		_buffer.putInt(VERSION);
+		_buffer.putInt(_numBodies);
+		for(int k = 0; k < _numBodies; k++) {
+			int i = sim.getHandleAt(k);
+			byte[] id = bs.getId(i).getBytes(StandardCharsets.UTF_8);
+			ensure(4);
+			_buffer.putInt(id.length);
+			for(byte b: id) {
+				ensure(1);
+				_buffer.put(b);
+			}
+			putDouble(bs.getMass(i));
+		}
+	}
+
+	@Override
+	public void end() throws IOException {
+		drain();
+	}
+
+	@Override
+	public void flush() {
+		try {
+			drain();
+		} catch (IOException e) {
+			// el error ya se habra notificado al escribir
+		}
+	}
+
+	private void putDouble(double d) throws IOException {
+		ensure(8);
+		_buffer.putDouble(d);
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if(_buffer.remaining() < bytes) {
+			drain();
+		}
+	}
+
+	private void drain() throws IOException {
+		_buffer.flip();
+		while(_buffer.hasRemaining()) {
+			_out.write(_buffer);
+		}
+		_buffer.clear();
+	}
+}
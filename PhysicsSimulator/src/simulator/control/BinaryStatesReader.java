@@ -0,0 +1,190 @@
+package simulator.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/*
+ * Lee una trayectoria escrita por BinaryStateWriter. El fichero se proyecta en
+ * memoria con FileChannel.map (en segmentos de como mucho 2GB que contienen
+ * frames completos), asi que leer el estado de cualquier paso es O(1) y no
+ * hay que interpretar el resto del fichero.
+ */
+public class BinaryStatesReader implements AutoCloseable {
+
+	private RandomAccessFile _file;
+	private String[] _ids;
+	private double[] _initialMass;
+	private int _numBodies;
+	private long _headerBytes;
+	private long _frameBytes;
+	private long _numFrames;
+	private int _framesPerSegment;
+	private MappedByteBuffer[] _segments;
+
+	public BinaryStatesReader(File f) throws IOException {
+		this._file = new RandomAccessFile(f, "r");
+		try {
+			FileChannel ch = _file.getChannel();
+			readHeader(ch);
+			mapFrames(ch);
+		} catch (IOException | RuntimeException e) {
+			_file.close();
+			throw e;
+		}
+	}
+
+	private void readHeader(FileChannel ch) throws IOException {
+		long size = ch.size();
+		// la cabecera se proyecta de forma incremental porque su tamano depende de los ids
+		MappedByteBuffer h = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+		h.order(ByteOrder.LITTLE_ENDIAN);
+
+		if(size < 12 || h.getInt() != BinaryStateWriter.MAGIC) {
+			throw new IOException("No es una trayectoria binaria");
+		}
+		int version = h.getInt();
+		if(version != BinaryStateWriter.VERSION) {
+			throw new IOException("Version de trayectoria no soportada: " + version);
+		}
+
+		_numBodies = h.getInt();
+		_ids = new String[_numBodies];
+		_initialMass = new double[_numBodies];
+		for(int i = 0; i < _numBodies; i++) {
+			byte[] id = new byte[h.getInt()];
+			h.get(id);
+			_ids[i] = new String(id, StandardCharsets.UTF_8);
+			_initialMass[i] = h.getDouble();
+		}
+
+		_headerBytes = h.position();
+		_frameBytes = BinaryStateWriter.FRAME_HEADER_BYTES + (long) _numBodies * BinaryStateWriter.BODY_BYTES;
+		_numFrames = (size - _headerBytes) / _frameBytes;
+	}
+
+	private void mapFrames(FileChannel ch) throws IOException {
+		_framesPerSegment = (int) Math.max(1, Integer.MAX_VALUE / _frameBytes);
+		int numSegments = (int) ((_numFrames + _framesPerSegment - 1) / _framesPerSegment);
+
+		_segments = new MappedByteBuffer[numSegments];
+		for(int s = 0; s < numSegments; s++) {
+			long first = (long) s * _framesPerSegment;
+			long frames = Math.min(_framesPerSegment, _numFrames - first);
+			_segments[s] = ch.map(FileChannel.MapMode.READ_ONLY, _headerBytes + first * _frameBytes, frames * _frameBytes);
+			_segments[s].order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	public int getNumBodies() {
+		return _numBodies;
+	}
+
+	public long getNumFrames() {
+		return _numFrames;
+	}
+
+	public String getId(int body) {
+		return _ids[body];
+	}
+
+	public double getInitialMass(int body) {
+		return _initialMass[body];
+	}
+
+	public double getTime(long step) {
+		return read(step, -1, 0);
+	}
+
+	public double getMass(long step, int body) {
+		return read(step, body, 0);
+	}
+
+	public double getPositionX(long step, int body) {
+		return read(step, body, 1);
+	}
+
+	public double getPositionY(long step, int body) {
+		return read(step, body, 2);
+	}
+
+	public double getVelocityX(long step, int body) {
+		return read(step, body, 3);
+	}
+
+	public double getVelocityY(long step, int body) {
+		return read(step, body, 4);
+	}
+
+	public double getForceX(long step, int body) {
+		return read(step, body, 5);
+	}
+
+	public double getForceY(long step, int body) {
+		return read(step, body, 6);
+	}
+
+	// campo k del cuerpo body en el frame step (body = -1 para el tiempo)
+	private double read(long step, int body, int k) {
+		if(step < 0 || step >= _numFrames) {
+			throw new IndexOutOfBoundsException("Paso no valido: " + step);
+		}
+		MappedByteBuffer seg = _segments[(int) (step / _framesPerSegment)];
+		int offset = (int) ((step % _framesPerSegment) * _frameBytes);
+		if(body >= 0) {
+			offset += BinaryStateWriter.FRAME_HEADER_BYTES + body * BinaryStateWriter.BODY_BYTES + 8 * k;
+		}
+		return seg.getDouble(offset);
+	}
+
+	// el estado de un paso con el mismo formato que PhysicsSimulator.getState()
+	public JSONObject getState(long step) {
+		JSONObject j = new JSONObject();
+		JSONArray ja = new JSONArray();
+
+		for(int i = 0; i < _numBodies; i++) {
+			JSONObject b = new JSONObject();
+			b.put("id", _ids[i]);
+			b.put("m", getMass(step, i));
+			b.put("p", new JSONArray().put(getPositionX(step, i)).put(getPositionY(step, i)));
+			b.put("v", new JSONArray().put(getVelocityX(step, i)).put(getVelocityY(step, i)));
+			b.put("f", new JSONArray().put(getForceX(step, i)).put(getForceY(step, i)));
+			ja.put(b);
+		}
+
+		j.put("bodies", ja);
+		j.put("time", getTime(step));
+
+		return j;
+	}
+
+	// convierte la trayectoria al documento JSON {"states":[...]} de siempre
+	public void toJSON(OutputStream out) throws IOException {
+		JSONStateWriter w = new JSONStateWriter(out);
+
+		w.begin();
+		for(long k = 0; k < _numFrames; k++) {
+			w.beginState();
+			for(int i = 0; i < _numBodies; i++) {
+				w.writeBody(_ids[i], getMass(k, i), getPositionX(k, i), getPositionY(k, i),
+						getVelocityX(k, i), getVelocityY(k, i), getForceX(k, i), getForceY(k, i));
+			}
+			w.endState(getTime(k));
+		}
+		w.end();
+	}
+
+	@Override
+	public void close() throws IOException {
+		_segments = null;
+		_file.close();
+	}
+}
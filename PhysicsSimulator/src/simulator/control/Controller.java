@@ -1,9 +1,11 @@
 package simulator.control;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -31,41 +33,52 @@ public class Controller {
 	
 	public void run(int steps, OutputStream out, InputStream expOut, StateComparator cmp) throws ControllerException 
 	{
-		PrintStream p = new PrintStream(out);
-		JSONObject j = new JSONObject();
-		
-		p.println("{");
-		p.println("\"states\": [");
-		
-		j = this._sim.getState();
-		p.println(j);
+		run(steps, new JSONStateWriter(out), expOut, cmp);
+	}
+	
+	public void run(int steps, StateWriter w, InputStream expOut, StateComparator cmp) throws ControllerException 
+	{
+		try {
+			runSteps(steps, w, expOut, cmp);
+		} catch (IOException e) {
+			throw new ControllerException("Error al escribir la salida", e);
+		} finally {
+			w.flush();
+		}
+	}
+	
+	private void runSteps(int steps, StateWriter w, InputStream expOut, StateComparator cmp) throws ControllerException, IOException
+	{
+		ExpectedStatesReader expected = null;
 		
 		if(expOut != null) {
-			JSONObject jsonInput = new JSONObject(new JSONTokener(expOut));
-			JSONArray j1 = jsonInput.getJSONArray("states");
-			
-			if(!cmp.equal(j, j1.getJSONObject(0))) {
-				throw new ControllerException("Fallo en el paso numero " + steps);
-			}
+			expected = new ExpectedStatesReader(expOut);
 		}
 		
+		w.begin();
+		w.writeState(this._sim);
+		compare(expected, cmp, 0);
+		
 		for(int i=1;i<steps;i++) {
 			this._sim.advance();
-			j = this._sim.getState();
-			p.println(",");
-			p.println(j);
+			w.writeState(this._sim);
+			compare(expected, cmp, i);
+		}
+		w.end();
+	}
+	
+	// compara el estado actual con el siguiente estado esperado
+	private void compare(ExpectedStatesReader expected, StateComparator cmp, int step) throws ControllerException {
+		if(expected != null) {
+			JSONObject j1 = expected.next();
 			
-			if(expOut != null) {
-				JSONObject jsonInput = new JSONObject(new JSONTokener(expOut));
-				JSONArray j1 = jsonInput.getJSONArray("states");
-				
-				if(!cmp.equal(j, j1.getJSONObject(i))) {
-					throw new ControllerException("Fallo en el paso numero " + steps);
-				}
+			if(j1 == null) {
+				throw new ControllerException("Fallo en el paso numero " + step + ": no hay estado esperado");
+			}
+			if(!cmp.equal(this._sim.getState(), j1)) {
+				throw new ControllerException("Fallo en el paso numero " + step);
 			}
 		}
-		p.println("]");
-		p.println("}");
 	}
 	
 	public void runGUI(int steps) {
@@ -78,9 +91,12 @@ public class Controller {
 	{
 		 JSONObject jsonInupt = new JSONObject(new JSONTokener(in));
 		 JSONArray bodies = jsonInupt.getJSONArray("bodies");
+		 List<Body> lista = new ArrayList<>(bodies.length());
 		 
 		 for (int i = 0; i < bodies.length(); i++)
-			 _sim.addBody(_bodiesFactory.createInstance(bodies.getJSONObject(i)));
+			 lista.add(_bodiesFactory.createInstance(bodies.getJSONObject(i)));
+		 // todos de una vez: un solo aviso a los observadores
+		 _sim.addBodies(lista);
 	}
 	
 	public void reset() {
@@ -95,6 +111,15 @@ public class Controller {
 		this._sim.addObserver(o);
 	}
 	
+	// con observadores asincronos los pasos se pueden dar fuera del hilo de Swing
+	public boolean hasAsyncObservers() {
+		return this._sim.hasAsyncObservers();
+	}
+	
+	public Map<SimulatorObserver, Long> getDroppedEvents() {
+		return this._sim.getDroppedEvents();
+	}
+	
 	public List<JSONObject> getForceLawsInfo(){
 		return this._forceLawsFactory.getInfo();
 	}
@@ -0,0 +1,87 @@
+package simulator.control;
+
+import java.io.InputStream;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/*
+ * Lee los estados de un fichero {"states":[...]} de uno en uno, a la vez que
+ * avanza la simulacion. Solo se mantiene en memoria el estado actual, asi que
+ * se pueden comparar ficheros de cualquier numero de pasos.
+ */
+public class ExpectedStatesReader {
+
+	private JSONTokener _tokener;
+	private boolean _started; // se ha leido el primer estado
+	private boolean _finished; // se ha llegado al final del array
+
+	public ExpectedStatesReader(InputStream in) {
+		this._tokener = new JSONTokener(in);
+		this._started = false;
+		this._finished = false;
+		skipToStates();
+	}
+
+	// deja el tokener justo despues del '[' del array "states"
+	private void skipToStates() {
+		if(_tokener.nextClean() != '{') {
+			throw _tokener.syntaxError("A JSONObject text must begin with '{'");
+		}
+
+		while(true) {
+			char c = _tokener.nextClean();
+			if(c == '}' || c == 0) {
+				throw new JSONException("JSONObject[\"states\"] not found.");
+			}
+			_tokener.back();
+
+			String key = _tokener.nextValue().toString();
+			if(_tokener.nextClean() != ':') {
+				throw _tokener.syntaxError("Expected a ':' after a key");
+			}
+
+			if(key.equals("states")) {
+				if(_tokener.nextClean() != '[') {
+					throw new JSONException("JSONObject[\"states\"] is not a JSONArray.");
+				}
+				return;
+			}
+
+			// cualquier otra clave se lee y se descarta
+			_tokener.nextValue();
+			c = _tokener.nextClean();
+			if(c == '}') {
+				_tokener.back();
+			}
+			else if(c != ',') {
+				throw _tokener.syntaxError("Expected a ',' or '}'");
+			}
+		}
+	}
+
+	// devuelve el siguiente estado, o null si no quedan mas
+	public JSONObject next() {
+		if(_finished) {
+			return null;
+		}
+
+		char c = _tokener.nextClean();
+		if(c == ']') {
+			_finished = true;
+			return null;
+		}
+		if(_started) {
+			if(c != ',') {
+				throw _tokener.syntaxError("Expected a ',' or ']'");
+			}
+		}
+		else {
+			_tokener.back();
+		}
+		_started = true;
+
+		return new JSONObject(_tokener);
+	}
+}
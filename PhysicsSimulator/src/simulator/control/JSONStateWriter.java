@@ -0,0 +1,140 @@
+package simulator.control;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import simulator.model.BodyStore;
+import simulator.model.PhysicsSimulator;
+
+/*
+ * Escribe el documento {"states":[...]} directamente desde los datos de los
+ * cuerpos, sin construir JSONObject. La salida es identica byte a byte a la de
+ * imprimir PhysicsSimulator.getState() con println: mismo orden de claves y
+ * mismo formato de numeros que org.json.
+ */
+public class JSONStateWriter implements StateWriter {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final String NL = System.lineSeparator();
+
+	private Writer _out;
+	private StringBuilder _num; // para formatear numeros sin crear objetos
+	private char[] _chars;
+	private int _states;
+	private int _bodiesInState;
+
+	public JSONStateWriter(OutputStream out) {
+		this._out = new BufferedWriter(new OutputStreamWriter(out), BUFFER_SIZE);
+		this._num = new StringBuilder(32);
+		this._chars = new char[32];
+		this._states = 0;
+	}
+
+	@Override
+	public void begin() throws IOException {
+		_out.write("{" + NL);
+		_out.write("\"states\": [" + NL);
+	}
+
+	@Override
+	public void writeState(PhysicsSimulator sim) throws IOException {
+		BodyStore bs = sim.getBodyStore();
+
+		beginState();
+		for(int k = 0; k < bs.size(); k++) {
+			int i = sim.getHandleAt(k);
+			writeBody(bs.getId(i), bs.getMass(i), bs.getPositionX(i), bs.getPositionY(i),
+					bs.getVelocityX(i), bs.getVelocityY(i), bs.getForceX(i), bs.getForceY(i));
+		}
+		endState(sim.getTime());
+	}
+
+	public void beginState() throws IOException {
+		if(_states > 0) {
+			_out.write("," + NL);
+		}
+		_out.write("{\"bodies\":[");
+		_states++;
+	}
+
+	// el orden de las claves es el que produce JSONObject para un cuerpo
+	public void writeBody(String id, double m, double px, double py, double vx, double vy, double fx, double fy) throws IOException {
+		if(_bodiesInState > 0) {
+			_out.write(',');
+		}
+		_out.write("{\"p\":");
+		writeVector(px, py);
+		_out.write(",\"v\":");
+		writeVector(vx, vy);
+		_out.write(",\"f\":");
+		writeVector(fx, fy);
+		_out.write(",\"id\":");
+		JSONObject.quote(id, _out);
+		_out.write(",\"m\":");
+		writeNumber(m);
+		_out.write('}');
+		_bodiesInState++;
+	}
+
+	public void endState(double time) throws IOException {
+		_out.write("],\"time\":");
+		writeNumber(time);
+		_out.write("}" + NL);
+		_bodiesInState = 0;
+	}
+
+	@Override
+	public void end() throws IOException {
+		_out.write("]" + NL);
+		_out.write("}" + NL);
+		_out.flush();
+	}
+
+	// vacia el buffer sin cerrar el stream (puede ser System.out)
+	@Override
+	public void flush() {
+		try {
+			_out.flush();
+		} catch (IOException e) {
+			// el error ya se habra notificado al escribir
+		}
+	}
+
+	private void writeVector(double x, double y) throws IOException {
+		_out.write('[');
+		writeNumber(x);
+		_out.write(',');
+		writeNumber(y);
+		_out.write(']');
+	}
+
+	// mismo formato que JSONObject.numberToString: se quitan los ceros finales
+	// y el punto si el numero no esta en notacion cientifica
+	private void writeNumber(double d) throws IOException {
+		if(Double.isInfinite(d) || Double.isNaN(d)) {
+			throw new JSONException("JSON does not allow non-finite numbers.");
+		}
+		_num.setLength(0);
+		_num.append(d);
+		int len = _num.length();
+		if(_num.indexOf("E") < 0) {
+			int dot = _num.indexOf(".");
+			if(dot > 0) {
+				while(_num.charAt(len - 1) == '0') {
+					len--;
+				}
+				if(_num.charAt(len - 1) == '.') {
+					len--;
+				}
+			}
+		}
+		_num.getChars(0, len, _chars, 0);
+		_out.write(_chars, 0, len);
+	}
+}
@@ -13,7 +13,7 @@ public class MassEqualStates implements StateComparator {
 	public boolean equal(JSONObject s1, JSONObject s2) {
 		boolean iguales = false;
 		
-		if(s1.get("time").equals(s2.get("time"))) {
+		if(s1.getDouble("time") == s2.getDouble("time")) {
 			iguales = true;
 			JSONArray j1 = s1.getJSONArray("bodies");
 			JSONArray j2 = s2.getJSONArray("bodies");
@@ -21,7 +21,7 @@ public class MassEqualStates implements StateComparator {
 			
 			while(i < j1.length() && iguales) {
 				if(j1.getJSONObject(i).getString("id").equals(j2.getJSONObject(i).getString("id")) && 
-						j1.getJSONObject(i).getDouble("mass") == j2.getJSONObject(i).getDouble("mass")) {
+						j1.getJSONObject(i).getDouble("m") == j2.getJSONObject(i).getDouble("m")) {
 					iguales = true;
 				}
 				else {
@@ -0,0 +1,13 @@
+package simulator.control;
+
+import java.io.IOException;
+
+import simulator.model.PhysicsSimulator;
+
+// escritor de la secuencia de estados de una ejecucion en modo batch
+public interface StateWriter {
+	public void begin() throws IOException;
+	public void writeState(PhysicsSimulator sim) throws IOException;
+	public void end() throws IOException;
+	public void flush();
+}
@@ -0,0 +1,49 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.BarnesHutGravitation;
+import simulator.model.ForceLaws;
+
+public class BarnesHutGravitationBuilder extends Builder<ForceLaws>{
+	
+	private static final double cG = 6.67E-11;
+	private static final double THETA = 0.5;
+	
+	public BarnesHutGravitationBuilder()
+	{
+		super._typeTag = "nlug-bh";
+		super.desc = "Newton's law of universal gravitation (Barnes-Hut)";
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		double G;
+		double theta;
+		
+		if(!info.has("G")) {
+			G = cG;
+		}
+		else {
+			G = info.getDouble("G");
+		}
+		
+		if(!info.has("theta")) {
+			theta = THETA;
+		}
+		else {
+			theta = info.getDouble("theta");
+		}
+		
+		return new BarnesHutGravitation(G, theta);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("G", "the gravitational constant (a number)");
+		data.put("theta", "the opening angle, 0 gives the exact law (a number, default " + THETA + ")");
+		
+		return data;
+	}
+}
@@ -0,0 +1,48 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.BlockTimeStepIntegrator;
+import simulator.model.Integrator;
+
+public class BlockTimeStepIntegratorBuilder extends Builder<Integrator>{
+	
+	private static final int LEVELS = 10;
+	private static final double ETA = 0.02;
+	
+	public BlockTimeStepIntegratorBuilder(){
+		super._typeTag = "block";
+		this.desc = "Leapfrog with per-body block time steps (dt/2^level, bodies synchronised every dt)";
+	}
+	
+	public Integrator createTheInstance(JSONObject info)
+	{
+		int levels;
+		double eta;
+		
+		if(!info.has("levels")) {
+			levels = LEVELS;
+		}
+		else {
+			levels = info.getInt("levels");
+		}
+		
+		if(!info.has("eta")) {
+			eta = ETA;
+		}
+		else {
+			eta = info.getDouble("eta");
+		}
+		
+		return new BlockTimeStepIntegrator(levels, eta);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("levels", "the number of halvings of dt a body can take, its smallest step is dt/2^levels (an integer from 0 to 30, default " + LEVELS + ")");
+		data.put("eta", "the accuracy parameter, the step of a body is at most eta*|a|/|da/dt| (a number, default " + ETA + ")");
+		
+		return data;
+	}
+}
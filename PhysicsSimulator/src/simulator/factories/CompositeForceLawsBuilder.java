@@ -0,0 +1,48 @@
+package simulator.factories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import simulator.model.CompositeForceLaws;
+import simulator.model.ForceLaws;
+
+public class CompositeForceLawsBuilder extends Builder<ForceLaws>{
+	
+	private Factory<ForceLaws> _lawsFactory; // para las leyes de la lista
+	
+	public CompositeForceLawsBuilder(Factory<ForceLaws> lawsFactory){
+		super._typeTag = "composite";
+		this.desc = "Sum of several force laws";
+		this._lawsFactory = lawsFactory;
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		if(!info.has("laws")) {
+			throw new IllegalArgumentException("Falta la lista de leyes");
+		}
+		
+		JSONArray ja = info.getJSONArray("laws");
+		List<ForceLaws> laws = new ArrayList<>();
+		for(int i = 0; i < ja.length(); i++) {
+			JSONObject law = ja.getJSONObject(i);
+			if(!law.has("data")) {
+				law.put("data", new JSONObject());
+			}
+			laws.add(_lawsFactory.createInstance(law));
+		}
+		
+		return new CompositeForceLaws(laws);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("laws", "the force laws to add up (a json list of force laws, e.g., [{\"type\":\"nlug\"},{\"type\":\"drag\",\"data\":{\"k\":1e20}}])");
+		
+		return data;
+	}
+}
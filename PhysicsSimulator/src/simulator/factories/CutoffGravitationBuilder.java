@@ -0,0 +1,64 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.CutoffGravitation;
+import simulator.model.ForceLaws;
+
+public class CutoffGravitationBuilder extends Builder<ForceLaws>{
+	
+	private static final double cG = 6.67E-11;
+	
+	public CutoffGravitationBuilder()
+	{
+		super._typeTag = "nlug-cut";
+		super.desc = "Softened gravitation with a cutoff distance";
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		double G;
+		double eps;
+		double cutoff;
+		double skin;
+		
+		if(!info.has("cutoff")) {
+			throw new IllegalArgumentException("Falta la distancia de corte");
+		}
+		cutoff = info.getDouble("cutoff");
+		
+		if(!info.has("G")) {
+			G = cG;
+		}
+		else {
+			G = info.getDouble("G");
+		}
+		
+		if(!info.has("eps")) {
+			eps = 0.0;
+		}
+		else {
+			eps = info.getDouble("eps");
+		}
+		
+		if(!info.has("skin")) {
+			skin = 0.1 * cutoff;
+		}
+		else {
+			skin = info.getDouble("skin");
+		}
+		
+		return new CutoffGravitation(G, eps, cutoff, skin);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("G", "the gravitational constant (a number)");
+		data.put("eps", "the softening length (a number, default 0)");
+		data.put("cutoff", "the distance beyond which there is no force (a number)");
+		data.put("skin", "the extra distance kept in the neighbour lists (a number, default 0.1*cutoff)");
+		
+		return data;
+	}
+}
@@ -0,0 +1,18 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.EulerIntegrator;
+import simulator.model.Integrator;
+
+public class EulerIntegratorBuilder extends Builder<Integrator>{
+	
+	public EulerIntegratorBuilder(){
+		super._typeTag = "euler";
+		this.desc = "Euler (first order, the original movement of the bodies)";
+	}
+	
+	public Integrator createTheInstance(JSONObject info)
+	{
+		return new EulerIntegrator();
+	}
+}
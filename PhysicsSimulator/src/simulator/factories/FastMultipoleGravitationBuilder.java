@@ -0,0 +1,49 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.FastMultipoleGravitation;
+import simulator.model.ForceLaws;
+
+public class FastMultipoleGravitationBuilder extends Builder<ForceLaws>{
+	
+	private static final double cG = 6.67E-11;
+	private static final int ORDER = 8;
+	
+	public FastMultipoleGravitationBuilder()
+	{
+		super._typeTag = "nlug-fmm";
+		super.desc = "Newton's law of universal gravitation (fast multipole method)";
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		double G;
+		int order;
+		
+		if(!info.has("G")) {
+			G = cG;
+		}
+		else {
+			G = info.getDouble("G");
+		}
+		
+		if(!info.has("order")) {
+			order = ORDER;
+		}
+		else {
+			order = info.getInt("order");
+		}
+		
+		return new FastMultipoleGravitation(G, order);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("G", "the gravitational constant (a number)");
+		data.put("order", "the order of the expansions, higher is more accurate and slower (an integer from 1 to 20, default " + ORDER + ")");
+		
+		return data;
+	}
+}
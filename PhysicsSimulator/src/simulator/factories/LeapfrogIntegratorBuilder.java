@@ -0,0 +1,18 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.LeapfrogIntegrator;
+import simulator.model.Integrator;
+
+public class LeapfrogIntegratorBuilder extends Builder<Integrator>{
+	
+	public LeapfrogIntegratorBuilder(){
+		super._typeTag = "leapfrog";
+		this.desc = "Leapfrog / velocity Verlet (second order, symplectic, one force evaluation per step)";
+	}
+	
+	public Integrator createTheInstance(JSONObject info)
+	{
+		return new LeapfrogIntegrator();
+	}
+}
@@ -0,0 +1,64 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.ForceLaws;
+import simulator.model.LennardJones;
+
+public class LennardJonesBuilder extends Builder<ForceLaws>{
+	
+	public LennardJonesBuilder()
+	{
+		super._typeTag = "lj";
+		super.desc = "Lennard-Jones potential with a cutoff distance";
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		double epsilon;
+		double sigma;
+		double cutoff;
+		double skin;
+		
+		if(!info.has("epsilon")) {
+			epsilon = 1.0;
+		}
+		else {
+			epsilon = info.getDouble("epsilon");
+		}
+		
+		if(!info.has("sigma")) {
+			sigma = 1.0;
+		}
+		else {
+			sigma = info.getDouble("sigma");
+		}
+		
+		if(!info.has("cutoff")) {
+			cutoff = 2.5 * sigma;
+		}
+		else {
+			cutoff = info.getDouble("cutoff");
+		}
+		
+		if(!info.has("skin")) {
+			skin = 0.3 * sigma;
+		}
+		else {
+			skin = info.getDouble("skin");
+		}
+		
+		return new LennardJones(epsilon, sigma, cutoff, skin);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("epsilon", "the depth of the potential well (a number, default 1)");
+		data.put("sigma", "the distance at which the potential is zero (a number, default 1)");
+		data.put("cutoff", "the distance beyond which there is no force (a number, default 2.5*sigma)");
+		data.put("skin", "the extra distance kept in the neighbour lists (a number, default 0.3*sigma)");
+		
+		return data;
+	}
+}
@@ -0,0 +1,31 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.ForceLaws;
+import simulator.model.LinearDrag;
+
+public class LinearDragBuilder extends Builder<ForceLaws>{
+	
+	public LinearDragBuilder(){
+		super._typeTag = "drag";
+		this.desc = "Linear drag, force -k*v";
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		if(!info.has("k")) {
+			throw new IllegalArgumentException("Falta el coeficiente de rozamiento");
+		}
+		
+		return new LinearDrag(info.getDouble("k"));
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("k", "the drag coefficient, in kg/s (a non-negative number)");
+		
+		return data;
+	}
+}
@@ -0,0 +1,40 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.ForceLaws;
+import simulator.model.MixedPrecisionGravitation;
+
+public class MixedPrecisionGravitationBuilder extends Builder<ForceLaws>{
+	
+	private static final double cG = 6.67E-11;
+	
+	public MixedPrecisionGravitationBuilder()
+	{
+		super._typeTag = "nlug-f32";
+		super.desc = "Newton's law of universal gravitation (pair interactions in float, force sums in double)";
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		double G;
+		
+		if(!info.has("G")) {
+			G = cG;
+		}
+		else {
+			G = info.getDouble("G");
+		}
+		
+		return new MixedPrecisionGravitation(G);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("G", "the gravitational constant (a number)");
+		
+		return data;
+	}
+}
+
@@ -0,0 +1,63 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+
+import simulator.misc.Vector2D;
+import simulator.model.ForceLaws;
+import simulator.model.ParticleMeshGravitation;
+
+public class ParticleMeshGravitationBuilder extends Builder<ForceLaws>{
+	
+	private static final double cG = 6.67E-11;
+	private static final int GRID = 128;
+	
+	public ParticleMeshGravitationBuilder()
+	{
+		super._typeTag = "nlug-pm";
+		super.desc = "Newton's law of universal gravitation (particle-mesh)";
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		double G;
+		int grid;
+		Vector2D min = null;
+		Vector2D max = null;
+		
+		if(!info.has("G")) {
+			G = cG;
+		}
+		else {
+			G = info.getDouble("G");
+		}
+		
+		if(!info.has("grid")) {
+			grid = GRID;
+		}
+		else {
+			grid = info.getInt("grid");
+		}
+		
+		if(info.has("min") || info.has("max")) {
+			if(!info.has("min") || !info.has("max")) {
+				throw new IllegalArgumentException("min y max se tienen que indicar juntos");
+			}
+			min = jsonArrayTodoubleArray(info.getJSONArray("min"));
+			max = jsonArrayTodoubleArray(info.getJSONArray("max"));
+		}
+		
+		return new ParticleMeshGravitation(G, grid, min, max);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("G", "the gravitational constant (a number)");
+		data.put("grid", "the number of cells per side, a power of 2 greater than 2 (default " + GRID + ")");
+		data.put("min", "the lower left corner of the domain (a json list of 2 numbers, by default it is fitted to the bodies every step)");
+		data.put("max", "the upper right corner of the domain (a json list of 2 numbers)");
+		
+		return data;
+	}
+}
@@ -0,0 +1,40 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.ForceLaws;
+import simulator.model.SimdGravitation;
+
+public class SimdGravitationBuilder extends Builder<ForceLaws>{
+	
+	private static final double cG = 6.67E-11;
+	
+	public SimdGravitationBuilder()
+	{
+		super._typeTag = "nlug-simd";
+		super.desc = "Newton's law of universal gravitation (SIMD kernel, needs JDK 17 and the jdk.incubator.vector module)";
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		double G;
+		
+		if(!info.has("G")) {
+			G = cG;
+		}
+		else {
+			G = info.getDouble("G");
+		}
+		
+		return new SimdGravitation(G);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("G", "the gravitational constant (a number)");
+		
+		return data;
+	}
+}
+
@@ -0,0 +1,49 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.TiledGravitation;
+import simulator.model.ForceLaws;
+
+public class TiledGravitationBuilder extends Builder<ForceLaws>{
+	
+	private static final double cG = 6.67E-11;
+	private static final int TILE = 256;
+	
+	public TiledGravitationBuilder()
+	{
+		super._typeTag = "nlug-tiled";
+		super.desc = "Newton's law of universal gravitation (exact, summed in cache-sized tiles)";
+	}
+	
+	public ForceLaws createTheInstance(JSONObject info)
+	{
+		double G;
+		int tile;
+		
+		if(!info.has("G")) {
+			G = cG;
+		}
+		else {
+			G = info.getDouble("G");
+		}
+		
+		if(!info.has("tile")) {
+			tile = TILE;
+		}
+		else {
+			tile = info.getInt("tile");
+		}
+		
+		return new TiledGravitation(G, tile);
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("G", "the gravitational constant (a number)");
+		data.put("tile", "the number of bodies per tile (a positive integer, default " + TILE + ")");
+		
+		return data;
+	}
+}
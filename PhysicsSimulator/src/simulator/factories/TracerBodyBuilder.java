@@ -0,0 +1,42 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.misc.Vector2D;
+import simulator.model.Body;
+import simulator.model.TracerBody;
+
+public class TracerBodyBuilder extends Builder<Body>{
+	
+	private static final double M = 1.0;
+	
+	public TracerBodyBuilder(){
+		this._typeTag = "tracer";
+		this.desc = "Tracer (feels the other bodies but does not attract them)";
+	}
+	
+	public Body createTheInstance(JSONObject info)
+	{	
+		Body b = null;
+		
+		String id = info.getString("id");
+		Vector2D p = jsonArrayTodoubleArray(info.getJSONArray("p"));
+		Vector2D v = jsonArrayTodoubleArray(info.getJSONArray("v"));
+		double m = info.has("m") ? info.getDouble("m") : M;
+		
+		b = new TracerBody(id,v,p,m);
+		
+		return b;
+	}
+	
+	protected JSONObject createData()
+	{
+		JSONObject data = new JSONObject();
+		
+		data.put("id", "the identifier");
+		data.put("p", "the position");
+		data.put("v", "the velocity");
+		data.put("m", "the mass, only used for the force shown (default " + M + ")");
+		
+		return data;
+	}
+}
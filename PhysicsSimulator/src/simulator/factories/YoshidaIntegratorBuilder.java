@@ -0,0 +1,18 @@
+package simulator.factories;
+
+import org.json.JSONObject;
+import simulator.model.YoshidaIntegrator;
+import simulator.model.Integrator;
+
+public class YoshidaIntegratorBuilder extends Builder<Integrator>{
+	
+	public YoshidaIntegratorBuilder(){
+		super._typeTag = "yoshida";
+		this.desc = "Yoshida (fourth order, symplectic, three force evaluations per step)";
+	}
+	
+	public Integrator createTheInstance(JSONObject info)
+	{
+		return new YoshidaIntegrator();
+	}
+}
@@ -18,20 +18,42 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.json.JSONObject;
+import simulator.control.BinaryStateWriter;
+import simulator.control.BinaryStatesReader;
 import simulator.control.Controller;
+import simulator.control.JSONStateWriter;
 import simulator.control.StateComparator;
+import simulator.control.StateWriter;
+import simulator.factories.BarnesHutGravitationBuilder;
 import simulator.factories.BasicBodyBuilder;
 import simulator.factories.Builder;
+import simulator.factories.CutoffGravitationBuilder;
+import simulator.factories.CompositeForceLawsBuilder;
 import simulator.factories.BuilderBasedFactory;
 import simulator.factories.EpsilonEqualStatesBuilder;
+import simulator.factories.EulerIntegratorBuilder;
+import simulator.factories.FastMultipoleGravitationBuilder;
+import simulator.factories.LeapfrogIntegratorBuilder;
+import simulator.factories.LennardJonesBuilder;
+import simulator.factories.LinearDragBuilder;
 import simulator.factories.Factory;
 import simulator.factories.MassEqualStatesBuilder;
 import simulator.factories.MassLosingBodyBuilder;
 import simulator.factories.MovingTowardsFixedPointBuilder;
 import simulator.factories.NewtonUniversalGravitationBuilder;
 import simulator.factories.NoForceBuilder;
+import simulator.factories.ParticleMeshGravitationBuilder;
+import simulator.factories.TracerBodyBuilder;
+import simulator.factories.SimdGravitationBuilder;
+import simulator.factories.TiledGravitationBuilder;
+import simulator.factories.MixedPrecisionGravitationBuilder;
+import simulator.factories.YoshidaIntegratorBuilder;
+import simulator.factories.BlockTimeStepIntegratorBuilder;
+import simulator.model.AdaptiveTimeStep;
+import simulator.model.EscapeCriterion;
 import simulator.model.Body;
 import simulator.model.ForceLaws;
+import simulator.model.Integrator;
 import simulator.model.PhysicsSimulator;
 import simulator.view.MainWindow;
 
@@ -43,6 +65,10 @@ public class Main {
 	private final static String _forceLawsDefaultValue = "nlug";
 	private final static String _stateComparatorDefaultValue = "espeq";
 	private final static Integer _stepsDefaultValue = 150;
+	private final static Integer _threadsDefaultValue = 0;
+	private final static String _formatDefaultValue = "json";
+	private final static String _integratorDefaultValue = "euler";
+	private final static Double _etaDefaultValue = 0.01;
 
 	// some attributes to stores values corresponding to command-line parameters
 	//
@@ -51,14 +77,21 @@ public class Main {
 	private static String _outFile = null;
 	private static String _expOut = null;
 	private static Integer _steps = 0;
+	private static Integer _threads = 0;
 	private static String _mode = null;
+	private static String _format = null;
 	private static JSONObject _forceLawsInfo = null;
 	private static JSONObject _stateComparatorInfo = null;
+	private static JSONObject _integratorInfo = null;
+	private static AdaptiveTimeStep _adaptiveDt = null;
+	private static EscapeCriterion _escape = null;
+	private static boolean _asyncObservers = false;
 
 	// factories
 	private static Factory<Body> _bodyFactory;
 	private static Factory<ForceLaws> _forceLawsFactory;
 	private static Factory<StateComparator> _stateComparatorFactory;
+	private static Factory<Integrator> _integratorFactory;
 
 	private static void init() {
 		// TODO initialize the bodies factory
@@ -66,14 +99,26 @@ public class Main {
 		ArrayList<Builder<Body>> bodyBuilders = new ArrayList<>();
 		bodyBuilders.add(new BasicBodyBuilder());
 		bodyBuilders.add(new MassLosingBodyBuilder());
+		bodyBuilders.add(new TracerBodyBuilder());
 		_bodyFactory = new BuilderBasedFactory<Body>(bodyBuilders);
 		
 		// TODO initialize the force laws factory
 		
 		ArrayList<Builder<ForceLaws>> forceLawsBuilders = new ArrayList<>();
 		forceLawsBuilders.add(new NewtonUniversalGravitationBuilder());
+		forceLawsBuilders.add(new BarnesHutGravitationBuilder());
+		forceLawsBuilders.add(new SimdGravitationBuilder());
+		forceLawsBuilders.add(new TiledGravitationBuilder());
+		forceLawsBuilders.add(new MixedPrecisionGravitationBuilder());
+		forceLawsBuilders.add(new FastMultipoleGravitationBuilder());
+		forceLawsBuilders.add(new ParticleMeshGravitationBuilder());
+		forceLawsBuilders.add(new CutoffGravitationBuilder());
+		forceLawsBuilders.add(new LennardJonesBuilder());
 		forceLawsBuilders.add(new MovingTowardsFixedPointBuilder());
+		forceLawsBuilders.add(new LinearDragBuilder());
 		forceLawsBuilders.add(new NoForceBuilder());
+		// las leyes de un composite son cualquiera de las anteriores
+		forceLawsBuilders.add(new CompositeForceLawsBuilder(new BuilderBasedFactory<ForceLaws>(forceLawsBuilders)));
 		_forceLawsFactory = new BuilderBasedFactory<ForceLaws>(forceLawsBuilders);
 
 		// TODO initialize the state comparator
@@ -81,6 +126,13 @@ public class Main {
 		stateComparatorBuilders.add(new MassEqualStatesBuilder());
 		stateComparatorBuilders.add(new EpsilonEqualStatesBuilder());
 		_stateComparatorFactory = new BuilderBasedFactory<StateComparator>(stateComparatorBuilders);
+		
+		ArrayList<Builder<Integrator>> integratorBuilders = new ArrayList<>();
+		integratorBuilders.add(new EulerIntegratorBuilder());
+		integratorBuilders.add(new LeapfrogIntegratorBuilder());
+		integratorBuilders.add(new YoshidaIntegratorBuilder());
+		integratorBuilders.add(new BlockTimeStepIntegratorBuilder());
+		_integratorFactory = new BuilderBasedFactory<Integrator>(integratorBuilders);
 	}
 
 	private static void parseArgs(String[] args) {
@@ -106,8 +158,14 @@ public class Main {
 			parseStepsOption(line);
 			parseDeltaTimeOption(line);
 			parseForceLawsOption(line);
+			parseIntegratorOption(line);
+			parseAdaptiveDeltaTimeOption(line);
+			parseEscapeOption(line);
+			_asyncObservers = line.hasOption("async");
 			parseStateComparatorOption(line);
 			parseEpsilonTimeOption(line);
+			parseThreadsOption(line);
+			parseFormatOption(line);
 
 			// if there are some remaining arguments, then something wrong is
 			// provided in the command line!
@@ -136,7 +194,8 @@ public class Main {
 		//----------------------------------------------------------------------------------------------------
 		// mode
 		cmdLineOptions.addOption(Option.builder("m").longOpt("mode").hasArg().desc("Execution Mode. Possible values: "
-				+ "\'" + "batch" + "\'" + "(Batch mode)," + "\'" + "gui" + "\'" + " (Graphical User Interface mode). Default value: " + "\'" + "batch" + "\'" + ".").build());
+				+ "\'" + "batch" + "\'" + "(Batch mode)," + "\'" + "gui" + "\'" + " (Graphical User Interface mode)," + "\'" + "convert" + "\'"
+				+ " (converts the binary trajectory given with -i to JSON). Default value: " + "\'" + "batch" + "\'" + ".").build());
 		//----------------------------------------------------------------------------------------------------
 			
 		// input file
@@ -158,6 +217,18 @@ public class Main {
 						+ _dtimeDefaultValue + ".")
 				.build());
 
+		// output format
+		cmdLineOptions.addOption(Option.builder("fmt").longOpt("format").hasArg()
+				.desc("Output format in batch mode. Possible values: 'json' (the states document), "
+						+ "'bin' (binary trajectory, see BinaryStateWriter). Default value: '" + _formatDefaultValue + "'.")
+				.build());
+
+		// threads
+		cmdLineOptions.addOption(Option.builder("th").longOpt("threads").hasArg()
+				.desc("Number of threads used to compute forces and move bodies, 0 to run everything in the main thread. "
+						+ "The results do not depend on the number of threads. Default value: " + _threadsDefaultValue + ".")
+				.build());
+
 		// force laws
 		cmdLineOptions.addOption(Option.builder("fl").longOpt("force-laws").hasArg()
 				.desc("Force laws to be used in the simulator. Possible values: "
@@ -165,6 +236,35 @@ public class Main {
 						+ "'.")
 				.build());
 
+		// adaptive delta time
+		cmdLineOptions.addOption(Option.builder("adt").longOpt("adaptive-dt").hasArg()
+				.desc("Choose the delta-time of every step from the accelerations and their change (jerk), "
+						+ "starting with the value of -dt. The argument is a json structure {eta:..,min:..,max:..} "
+						+ "without spaces, all optional: eta is the accuracy parameter (default " + _etaDefaultValue
+						+ "), min and max bound the delta-time (default -dt/1000 and -dt*1000).")
+				.build());
+
+		// asynchronous observers
+		cmdLineOptions.addOption(Option.builder("async").longOpt("async-observers")
+				.desc("GUI mode: run the simulation in its own thread and send the changes to every view through its "
+						+ "own queue, so a slow view skips intermediate states instead of slowing down the simulation. "
+						+ "The number of skipped states of each view is shown in the status bar when a run ends.")
+				.build());
+
+		// escape criterion
+		cmdLineOptions.addOption(Option.builder("esc").longOpt("escape").hasArg()
+				.desc("Remove the bodies that escape after every step. The argument is a json structure "
+						+ "{r:..,m:..} without spaces, both optional: bodies farther than r from the origin "
+						+ "or with mass below m are removed (default: no limit). Not available with '-fmt bin'.")
+				.build());
+
+		// integrator
+		cmdLineOptions.addOption(Option.builder("it").longOpt("integrator").hasArg()
+				.desc("Integrator used to move the bodies. Possible values: "
+						+ factoryPossibleValues(_integratorFactory) + ". Default value: '" + _integratorDefaultValue
+						+ "'.")
+				.build());
+
 		// gravity laws
 		cmdLineOptions.addOption(Option.builder("cmp").longOpt("comparator").hasArg()
 				.desc("State comparator to be used when comparing states. Possible values: "
@@ -205,6 +305,9 @@ public class Main {
 		if ((_inFile == null) && (_mode.equals("batch"))) {
 			throw new ParseException("In batch mode an input file of bodies is required");
 		}
+		if ((_inFile == null) && (_mode.equals("convert"))) {
+			throw new ParseException("In convert mode an input binary trajectory is required");
+		}
 	}
 	
 	private static void parseOutputFileOption(CommandLine line) throws ParseException {
@@ -232,6 +335,29 @@ public class Main {
 		}
 	}
 	
+	private static void parseFormatOption(CommandLine line) throws ParseException {
+		_format = line.getOptionValue("fmt", _formatDefaultValue);
+		if (!_format.equals("json") && !_format.equals("bin")) {
+			throw new ParseException("Invalid output format: " + _format);
+		}
+		// los frames binarios son todos del mismo tamano
+		if (_format.equals("bin") && _escape != null) {
+			throw new ParseException("The binary format needs a fixed number of bodies, it cannot be used with -esc");
+		}
+	}
+	
+	private static void parseThreadsOption(CommandLine line) throws ParseException {
+		String th = line.getOptionValue("th", _threadsDefaultValue.toString());
+		try {
+			_threads = Integer.parseInt(th);
+			if (_threads < 0) {
+				throw new ParseException("Invalid threads value: " + th);
+			}
+		} catch (NumberFormatException e) {
+			throw new ParseException("Invalid threads value: " + th);
+		}
+	}
+	
 	private static void parseEpsilonTimeOption(CommandLine line) throws ParseException {
 		_expOut = line.getOptionValue("eo"); 
 	}
@@ -289,6 +415,43 @@ public class Main {
 		}
 	}
 
+	private static void parseAdaptiveDeltaTimeOption(CommandLine line) throws ParseException {
+		String adt = line.getOptionValue("adt");
+		if (adt != null) {
+			try {
+				JSONObject data = new JSONObject(adt);
+				double eta = data.has("eta") ? data.getDouble("eta") : _etaDefaultValue;
+				double min = data.has("min") ? data.getDouble("min") : _dtime / 1000;
+				double max = data.has("max") ? data.getDouble("max") : _dtime * 1000;
+				_adaptiveDt = new AdaptiveTimeStep(eta, min, max);
+			} catch (Exception e) {
+				throw new ParseException("Invalid adaptive delta-time: " + adt);
+			}
+		}
+	}
+
+	private static void parseEscapeOption(CommandLine line) throws ParseException {
+		String esc = line.getOptionValue("esc");
+		if (esc != null) {
+			try {
+				JSONObject data = new JSONObject(esc);
+				double r = data.has("r") ? data.getDouble("r") : Double.POSITIVE_INFINITY;
+				double m = data.has("m") ? data.getDouble("m") : 0.0;
+				_escape = new EscapeCriterion(r, m);
+			} catch (Exception e) {
+				throw new ParseException("Invalid escape criterion: " + esc);
+			}
+		}
+	}
+
+	private static void parseIntegratorOption(CommandLine line) throws ParseException {
+		String it = line.getOptionValue("it", _integratorDefaultValue);
+		_integratorInfo = parseWRTFactory(it, _integratorFactory);
+		if (_integratorInfo == null) {
+			throw new ParseException("Invalid integrator: " + it);
+		}
+	}
+
 	private static void parseStateComparatorOption(CommandLine line) throws ParseException {
 		String scmp = line.getOptionValue("cmp", _stateComparatorDefaultValue);
 		_stateComparatorInfo = parseWRTFactory(scmp, _stateComparatorFactory);
@@ -307,17 +470,38 @@ public class Main {
 		OutputStream os = (_outFile == null) ? System.out:new FileOutputStream(new File(_outFile));
 		ForceLaws forceLaws = _forceLawsFactory.createInstance(_forceLawsInfo);
 		PhysicsSimulator sim = new PhysicsSimulator(forceLaws,_dtime);
+		sim.setThreads(_threads);
+		sim.setIntegrator(_integratorFactory.createInstance(_integratorInfo));
+		sim.setAdaptiveTimeStep(_adaptiveDt);
+		sim.setEscapeCriterion(_escape);
 		Controller ctrl = new Controller(sim,_bodyFactory, _forceLawsFactory);
 		StateComparator sc = _stateComparatorFactory.createInstance(_stateComparatorInfo);
 		
+		StateWriter w = _format.equals("bin") ? new BinaryStateWriter(os) : new JSONStateWriter(os);
+		
 		ctrl.loadBodies(is);
-		ctrl.run(_steps, os, eo, sc);
+		ctrl.run(_steps, w, eo, sc);
+	}
+	
+	private static void startConvertMode() throws Exception {
+		OutputStream os = (_outFile == null) ? System.out:new FileOutputStream(new File(_outFile));
+		
+		try (BinaryStatesReader reader = new BinaryStatesReader(new File(_inFile))) {
+			reader.toJSON(os);
+		}
 	}
 
 	private static void startGUIMode() throws Exception {
 		// TODO complete this method
 		ForceLaws forceLaws = _forceLawsFactory.createInstance(_forceLawsInfo);
 		PhysicsSimulator sim = new PhysicsSimulator(forceLaws,_dtime);
+		sim.setThreads(_threads);
+		sim.setIntegrator(_integratorFactory.createInstance(_integratorInfo));
+		sim.setAdaptiveTimeStep(_adaptiveDt);
+		sim.setEscapeCriterion(_escape);
+		if(_asyncObservers) {
+			sim.setObserverExecutor(SwingUtilities::invokeLater);
+		}
 		Controller ctrl = new Controller(sim,_bodyFactory, _forceLawsFactory);
 		StateComparator sc = _stateComparatorFactory.createInstance(_stateComparatorInfo);
 		
@@ -355,6 +539,13 @@ public class Main {
 				e.printStackTrace();
 			}
 		}
+		else if(_mode.equals("convert")) {
+			try {
+				startConvertMode();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
 		
 	}
 
@@ -0,0 +1,63 @@
+package simulator.misc;
+
+// in-place radix-2 complex FFT of a fixed size n (a power of two); the
+// twiddle factors and the bit reversal permutation are computed once so
+// transforms do not allocate
+public class FFT {
+
+	private int _n;
+	private int[] _rev;
+	private double[] _cos;
+	private double[] _sin;
+
+	public FFT(int n) {
+		if (n < 1 || (n & (n - 1)) != 0)
+			throw new IllegalArgumentException("FFT size must be a power of two: " + n);
+		_n = n;
+		_rev = new int[n];
+		int bits = Integer.numberOfTrailingZeros(n);
+		for (int i = 0; i < n; i++)
+			_rev[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+		_cos = new double[n / 2];
+		_sin = new double[n / 2];
+		for (int i = 0; i < n / 2; i++) {
+			_cos[i] = Math.cos(2 * Math.PI * i / n);
+			_sin[i] = Math.sin(2 * Math.PI * i / n);
+		}
+	}
+
+	public int size() {
+		return _n;
+	}
+
+	// transform the n values re[off + k*stride], im[off + k*stride]; the
+	// inverse is not scaled by 1/n
+	public void transform(double[] re, double[] im, int off, int stride, boolean inverse) {
+		int n = _n;
+		for (int i = 0; i < n; i++) {
+			int j = _rev[i];
+			if (i < j) {
+				int a = off + i * stride, b = off + j * stride;
+				double t = re[a]; re[a] = re[b]; re[b] = t;
+				t = im[a]; im[a] = im[b]; im[b] = t;
+			}
+		}
+		double sign = inverse ? 1 : -1;
+		for (int len = 2; len <= n; len <<= 1) {
+			int h = len / 2, step = n / len;
+			for (int s = 0; s < n; s += len) {
+				for (int k = 0; k < h; k++) {
+					double wr = _cos[k * step], wi = sign * _sin[k * step];
+					int a = off + (s + k) * stride, b = a + h * stride;
+					double xr = re[b] * wr - im[b] * wi;
+					double xi = re[b] * wi + im[b] * wr;
+					re[b] = re[a] - xr;
+					im[b] = im[a] - xi;
+					re[a] += xr;
+					im[a] += xi;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+package simulator.misc;
+
+// a vector whose operations modify it in place, so the viewer can reuse one
+// for every body it paints instead of allocating; the operations return this
+// so they can be chained
+public class MutableVector2D {
+
+	double _x;
+	double _y;
+
+	// create the zero vector
+	public MutableVector2D() {
+		_x = _y = 0.0;
+	}
+
+	public MutableVector2D set(double x, double y) {
+		_x = x;
+		_y = y;
+		return this;
+	}
+
+	// this = this * factor
+	public MutableVector2D scale(double factor) {
+		_x *= factor;
+		_y *= factor;
+		return this;
+	}
+
+	// turn this into the corresponding unit vector (the zero vector is left as is)
+	public MutableVector2D normalizeInPlace() {
+		double m = magnitude();
+		if (m > 0.0) {
+			scale(1.0 / m);
+		}
+		return this;
+	}
+
+	public double magnitude() {
+		return Math.sqrt(_x * _x + _y * _y);
+	}
+
+	public double getX() {
+		return _x;
+	}
+
+	public double getY() {
+		return _y;
+	}
+
+	public String toString() {
+		return "[" + _x + "," + _y + "]";
+	}
+
+}
@@ -36,7 +36,9 @@ public class Vector2D {
 
 	// return the distance between this and that
 	public double distanceTo(Vector2D that) {
-		return minus(that).magnitude();
+		double dx = _x - that._x;
+		double dy = _y - that._y;
+		return Math.sqrt(dx * dx + dy * dy);
 	}
 
 	// create and return a new object whose value is (this + that)
@@ -65,8 +67,9 @@ public class Vector2D {
 
 	// return the corresponding unit vector
 	public Vector2D direction() {
-		if (magnitude() > 0.0)
-			return scale(1.0 / magnitude());
+		double m = magnitude();
+		if (m > 0.0)
+			return scale(1.0 / m);
 		else
 			return new Vector2D(this);
 	}
@@ -0,0 +1,119 @@
+package simulator.model;
+
+/*
+ * Elige el dt de cada paso con un criterio aceleracion/jerk:
+ *
+ *   dt = eta * min_i |a_i| / |j_i|
+ *
+ * donde j_i es el jerk estimado por diferencias entre las fuerzas que deja
+ * el integrador en dos pasos seguidos (con Euler son las del principio del
+ * paso, asi que estan separadas por el dt del paso anterior). Es el tiempo en el que la
+ * aceleracion de algun cuerpo cambiaria en una fraccion eta de su valor.
+ * Un cuerpo con aceleracion casi nula por simetria (por ejemplo entre dos
+ * masas iguales) daria un dt casi nulo, asi que |a_i| no se toma menor que
+ * la aceleracion cuadratica media del sistema. El resultado se limita a
+ * [min, max] y a crecer como mucho el doble de un paso al siguiente, porque
+ * la estimacion del jerk es ruidosa.
+ */
+public class AdaptiveTimeStep {
+
+	private static final double MAX_GROWTH = 2.0;
+
+	protected double eta;
+	protected double min;
+	protected double max;
+
+	private double[] prevAx; // aceleraciones del paso anterior
+	private double[] prevAy;
+	private int prevSize; // -1 si no hay paso anterior
+	private double prevAge; // BodyStore.forcesAge del paso anterior
+
+	public AdaptiveTimeStep(double eta, double min, double max) {
+		if(eta <= 0 || min <= 0 || max < min) {
+			throw new IllegalArgumentException("Parametros de dt adaptativo no validos");
+		}
+		this.eta = eta;
+		this.min = min;
+		this.max = max;
+		this.prevAx = new double[0];
+		this.prevAy = new double[0];
+		this.prevSize = -1;
+	}
+
+	// dt del primer paso, o del siguiente a un cambio en los cuerpos
+	public double clamp(double dt) {
+		return Math.max(min, Math.min(max, dt));
+	}
+
+	// dt del paso siguiente a uno de duracion dt, con las fuerzas que han
+	// quedado en el almacen
+	double next(BodyStore bs, double dt) {
+		int n = bs.size;
+		double next;
+
+		if(prevSize != n) {
+			next = clamp(dt);
+		}
+		else {
+			// tiempo entre las posiciones de las dos fuerzas: las de ahora son de
+			// dt - forcesAge despues que las anteriores (no se usa forcesValid
+			// porque tambien lo quita la perdida de masa)
+			double span = dt - bs.forcesAge + prevAge;
+			double a2rms = 0;
+			int count = 0;
+			for(int i = 0; i < n; i++) {
+				if(bs.mass[i] != 0) {
+					double ax = bs.fx[i] / bs.mass[i];
+					double ay = bs.fy[i] / bs.mass[i];
+					a2rms += ax*ax + ay*ay;
+					count++;
+				}
+			}
+			a2rms = count > 0 ? a2rms / count : 0;
+			
+			double r2 = Double.POSITIVE_INFINITY; // min (|a|/|j|)^2
+			for(int i = 0; i < n; i++) {
+				if(bs.mass[i] != 0) {
+					double ax = bs.fx[i] / bs.mass[i];
+					double ay = bs.fy[i] / bs.mass[i];
+					double jx = (ax - prevAx[i]) / span;
+					double jy = (ay - prevAy[i]) / span;
+					double j2 = jx*jx + jy*jy;
+					if(j2 > 0) {
+						r2 = Math.min(r2, Math.max(ax*ax + ay*ay, a2rms) / j2);
+					}
+				}
+			}
+			next = Math.min(eta * Math.sqrt(r2), MAX_GROWTH * dt);
+			next = clamp(next);
+		}
+
+		save(bs);
+		prevAge = bs.forcesAge;
+		return next;
+	}
+
+	private void save(BodyStore bs) {
+		int n = bs.size;
+		if(prevAx.length < n) {
+			prevAx = new double[Math.max(n, 2 * prevAx.length)];
+			prevAy = new double[prevAx.length];
+		}
+		for(int i = 0; i < n; i++) {
+			if(bs.mass[i] != 0) {
+				prevAx[i] = bs.fx[i] / bs.mass[i];
+				prevAy[i] = bs.fy[i] / bs.mass[i];
+			}
+		}
+		prevSize = n;
+	}
+
+	// olvida las aceleraciones anteriores (los cuerpos han cambiado)
+	void reset() {
+		prevSize = -1;
+	}
+
+	public String toString() {
+		return "adaptive dt with eta=" + eta + " in [" + min + ", " + max + "]";
+	}
+}
@@ -0,0 +1,201 @@
+package simulator.model;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/*
+ * Observador que pasa los eventos a otro (target) a traves de una cola
+ * propia, entregandolos con un Executor (por ejemplo
+ * SwingUtilities::invokeLater), asi que el simulador no espera a que target
+ * termine. Los eventos llegan a target en orden y con una copia de los
+ * cuerpos del momento en que se produjeron, porque el simulador sigue
+ * cambiandolos mientras tanto.
+ *
+ * Los onAdvance se agrupan: si llega uno cuando el anterior aun esta en la
+ * cola, se sustituye su estado por el nuevo y el anterior se cuenta como
+ * descartado (getDropped). Un observador lento ve menos pasos pero siempre el
+ * ultimo estado. Los onDeltaTimeChanged se agrupan igual (con paso adaptativo
+ * llega uno casi en cada paso). El Executor tiene que ejecutar las tareas de
+ * una en una.
+ */
+public class AsyncObserver implements SimulatorObserver {
+
+	private SimulatorObserver target;
+	private Executor executor;
+	private ArrayDeque<Runnable> queue; // eventos aun no entregados
+	private Advance last; // ultimo evento de la cola si es un onAdvance
+	private DeltaTime lastDt; // onDeltaTimeChanged de la cola que aun se puede cambiar
+	private boolean scheduled; // hay una entrega pendiente en el executor
+	private long dropped;
+	private Runnable deliver;
+
+	// onAdvance pendiente; el estado se puede sustituir mientras esta en la cola
+	private class Advance implements Runnable {
+		private BodiesSnapshot bodies;
+		private double time;
+
+		Advance(BodiesSnapshot bodies, double time) {
+			this.bodies = bodies;
+			this.time = time;
+		}
+
+		@Override
+		public void run() {
+			target.onAdvance(bodies, time);
+		}
+	}
+
+	// onDeltaTimeChanged pendiente; el dt se puede sustituir mientras esta en la cola
+	private class DeltaTime implements Runnable {
+		private double dt;
+
+		DeltaTime(double dt) {
+			this.dt = dt;
+		}
+
+		@Override
+		public void run() {
+			target.onDeltaTimeChanged(dt);
+		}
+	}
+
+	public AsyncObserver(SimulatorObserver target, Executor executor) {
+		this.target = target;
+		this.executor = executor;
+		this.queue = new ArrayDeque<>();
+		this.deliver = this::deliver;
+	}
+
+	public SimulatorObserver getTarget() {
+		return target;
+	}
+
+	// numero de onAdvance que no se han entregado porque llego otro antes
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	// entrega todo lo que haya en la cola, en el hilo del executor
+	private void deliver() {
+		while(true) {
+			Runnable r;
+			synchronized(this) {
+				r = queue.poll();
+				if(r == null) {
+					scheduled = false;
+					return;
+				}
+				if(r == last) {
+					last = null;
+				}
+				else if(r == lastDt) {
+					lastDt = null;
+				}
+			}
+			boolean ok = false;
+			try {
+				r.run();
+				ok = true;
+			}
+			finally {
+				if(!ok) {
+					// si target falla los demas eventos se entregan en otra tarea
+					synchronized(this) {
+						scheduled = !queue.isEmpty();
+						if(scheduled) {
+							executor.execute(deliver);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// se llama con el cerrojo cogido
+	private void post(Runnable r) {
+		queue.add(r);
+		last = null;
+		lastDt = null;
+		if(!scheduled) {
+			scheduled = true;
+			executor.execute(deliver);
+		}
+	}
+
+	@Override
+	public synchronized void onAdvance(List<Body> bodies, double time) {
+		if(last != null) {
+			last.bodies.copy(bodies);
+			last.time = time;
+			dropped++;
+		}
+		else {
+			Advance a = new Advance(new BodiesSnapshot(bodies), time);
+			DeltaTime d = lastDt;
+			post(a);
+			last = a;
+			lastDt = d;
+		}
+	}
+
+	@Override
+	public synchronized void onRegister(List<Body> bodies, double time, double dt, String fLawsDesc) {
+		BodiesSnapshot s = new BodiesSnapshot(bodies);
+		post(() -> target.onRegister(s, time, dt, fLawsDesc));
+	}
+
+	@Override
+	public synchronized void onReset(List<Body> bodies, double time, double dt, String fLawsDesc) {
+		BodiesSnapshot s = new BodiesSnapshot(bodies);
+		post(() -> target.onReset(s, time, dt, fLawsDesc));
+	}
+
+	// b es siempre el ultimo de la lista
+	@Override
+	public synchronized void onBodyAdded(List<Body> bodies, Body b) {
+		BodiesSnapshot s = new BodiesSnapshot(bodies);
+		post(() -> target.onBodyAdded(s, s.get(s.size() - 1)));
+	}
+
+	// los anadidos son los ultimos de la lista
+	@Override
+	public synchronized void onBodiesAdded(List<Body> bodies, List<Body> added) {
+		BodiesSnapshot s = new BodiesSnapshot(bodies);
+		int from = s.size() - added.size();
+		post(() -> target.onBodiesAdded(s, s.subList(from, s.size())));
+	}
+
+	// un cuerpo quitado ya no cambia, asi que se entrega el mismo
+	@Override
+	public synchronized void onBodyRemoved(List<Body> bodies, Body b) {
+		BodiesSnapshot s = new BodiesSnapshot(bodies);
+		post(() -> target.onBodyRemoved(s, b));
+	}
+
+	// el simulador no vuelve a tocar la lista de quitados
+	@Override
+	public synchronized void onBodiesRemoved(List<Body> bodies, List<Body> removed) {
+		BodiesSnapshot s = new BodiesSnapshot(bodies);
+		post(() -> target.onBodiesRemoved(s, removed));
+	}
+
+	@Override
+	public synchronized void onDeltaTimeChanged(double dt) {
+		// el simulador manda cada onDeltaTimeChanged justo antes de un onAdvance,
+		// que sustituira tambien al que este detras de lastDt
+		if(lastDt != null) {
+			lastDt.dt = dt;
+		}
+		else {
+			DeltaTime d = new DeltaTime(dt);
+			post(d);
+			lastDt = d;
+		}
+	}
+
+	@Override
+	public synchronized void onForceLawsChanged(String fLawsDesc) {
+		post(() -> target.onForceLawsChanged(fLawsDesc));
+	}
+}
@@ -0,0 +1,217 @@
+package simulator.model;
+
+/*
+ * Pasos de tiempo por bloques: cada cuerpo avanza con su propio paso
+ * dt/2^l, con el nivel l entre 0 y levels, y los pasos de todos estan
+ * alineados, asi que al final de cada dt del simulador vuelven a coincidir.
+ *
+ * El tiempo dentro de un dt se cuenta en ticks de dt/2^levels. Cada cuerpo
+ * hace pasos kick-drift-kick: media patada al empezar su paso, y al
+ * terminarlo las leyes de fuerza calculan solo las fuerzas de los cuerpos
+ * que terminan a la vez (los activos) y se les da la otra media patada. Los
+ * demas solo se desplazan con su velocidad, que es lo que hace el KDK en mitad
+ * de un paso, y asi sus posiciones sirven para las fuerzas de los activos. Se
+ * salta directamente de un final de paso al siguiente, sin recorrer los
+ * ticks en los que no termina nadie.
+ *
+ * El nivel de un cuerpo se elige al terminar cada paso con el mismo criterio
+ * aceleracion/jerk que el dt adaptativo, pero por cuerpo: su paso es el mayor
+ * que no supera eta*|a|/|j|. Se puede reducir en cualquier momento, pero
+ * solo se dobla (un nivel cada vez) cuando el tick actual es multiplo del
+ * paso doble, para que siga alineado. Cuando se anaden o se quitan cuerpos
+ * todos empiezan en el nivel mas fino; si solo cambian las masas o las leyes
+ * de fuerza se recalculan las fuerzas y se mantienen los niveles.
+ */
+public class BlockTimeStepIntegrator implements Integrator {
+
+	protected int levels;
+	protected double eta;
+
+	private int[] level;
+	private long[] start; // tick en el que empezo el paso actual de cada cuerpo
+	private int[] active;
+	private double[] prevAx; // aceleracion y tiempo de la ultima fuerza de cada cuerpo
+	private double[] prevAy;
+	private double[] prevT;
+	private BodyStore initFor; // almacen y BodyStore.modCount de los niveles actuales
+	private int initModCount;
+	private double clock; // tiempo acumulado, para el jerk
+	private long evaluations; // fuerzas calculadas desde el principio
+
+	public BlockTimeStepIntegrator(int levels, double eta) {
+		if(levels < 0 || levels > 30 || eta <= 0) {
+			throw new IllegalArgumentException("Parametros de pasos por bloques no validos");
+		}
+		this.levels = levels;
+		this.eta = eta;
+		this.level = new int[0];
+		this.start = new long[0];
+		this.active = new int[0];
+		this.prevAx = new double[0];
+		this.prevAy = new double[0];
+		this.prevT = new double[0];
+	}
+
+	@Override
+	public void step(BodyStore bs, ForceLaws fl, double dt) {
+		int n = bs.size;
+		long ticks = 1L << levels;
+		double h = dt / ticks;
+
+		if(initFor != bs || initModCount != bs.modCount) {
+			init(bs, fl);
+		}
+		else if(!bs.forcesValid) {
+			forces(bs, fl);
+		}
+		double a2rms = meanSquaredAcceleration(bs);
+
+		for(int i = 0; i < n; i++) {
+			start[i] = 0;
+			kick(bs, i, length(i) * h / 2);
+		}
+
+		long now = 0;
+		while(now < ticks) {
+			long next = ticks;
+			for(int i = 0; i < n; i++) {
+				next = Math.min(next, start[i] + length(i));
+			}
+			double d = (next - now) * h;
+			for(int i = 0; i < n; i++) {
+				bs.px[i] = bs.px[i] + bs.vx[i] * d;
+				bs.py[i] = bs.py[i] + bs.vy[i] * d;
+			}
+			now = next;
+
+			int count = 0;
+			for(int i = 0; i < n; i++) {
+				if(start[i] + length(i) == now) {
+					active[count++] = i;
+				}
+			}
+			fl.apply(bs, active, count);
+			evaluations += count;
+
+			double t = clock + now * h;
+			for(int k = 0; k < count; k++) {
+				int i = active[k];
+				kick(bs, i, length(i) * h / 2);
+				chooseLevel(bs, i, now, t, dt, a2rms);
+				start[i] = now;
+				if(now < ticks) {
+					kick(bs, i, length(i) * h / 2);
+				}
+			}
+		}
+		clock += dt;
+
+		// en el ultimo tick han terminado todos
+		bs.forcesValid = true;
+		bs.forcesAge = 0;
+		bs.advanceTime(dt);
+	}
+
+	// todos los cuerpos al nivel mas fino
+	private void init(BodyStore bs, ForceLaws fl) {
+		int n = bs.size;
+		if(level.length < n) {
+			int cap = Math.max(n, 2 * level.length);
+			level = new int[cap];
+			start = new long[cap];
+			active = new int[cap];
+			prevAx = new double[cap];
+			prevAy = new double[cap];
+			prevT = new double[cap];
+		}
+		for(int i = 0; i < n; i++) {
+			level[i] = levels;
+		}
+		forces(bs, fl);
+		initFor = bs;
+		initModCount = bs.modCount;
+	}
+
+	// fuerzas de todos los cuerpos al final del ultimo paso, sin tocar los
+	// niveles; el jerk se vuelve a medir desde aqui
+	private void forces(BodyStore bs, ForceLaws fl) {
+		bs.resetForces();
+		fl.apply(bs);
+		bs.forcesValid = true;
+		evaluations += bs.size;
+		for(int i = 0; i < bs.size; i++) {
+			saveAcceleration(bs, i, clock);
+		}
+	}
+
+	private void chooseLevel(BodyStore bs, int i, long now, double t, double dt, double a2rms) {
+		if(bs.mass[i] != 0 && t > prevT[i]) {
+			double ax = bs.fx[i] / bs.mass[i];
+			double ay = bs.fy[i] / bs.mass[i];
+			double jx = (ax - prevAx[i]) / (t - prevT[i]);
+			double jy = (ay - prevAy[i]) / (t - prevT[i]);
+			double j2 = jx*jx + jy*jy;
+
+			int l = 0;
+			if(j2 > 0) {
+				double tau = eta * Math.sqrt(Math.max(ax*ax + ay*ay, a2rms) / j2);
+				while(l < levels && dt / (1L << l) > tau) {
+					l++;
+				}
+			}
+			if(l > level[i]) {
+				level[i] = l;
+			}
+			else if(l < level[i] && now % (2 * length(i)) == 0) {
+				level[i]--;
+			}
+		}
+		saveAcceleration(bs, i, t);
+	}
+
+	private void saveAcceleration(BodyStore bs, int i, double t) {
+		if(bs.mass[i] != 0) {
+			prevAx[i] = bs.fx[i] / bs.mass[i];
+			prevAy[i] = bs.fy[i] / bs.mass[i];
+		}
+		prevT[i] = t;
+	}
+
+	// |a|^2 medio, para que un cuerpo con aceleracion casi nula por simetria
+	// no baje al nivel mas fino
+	private double meanSquaredAcceleration(BodyStore bs) {
+		double a2 = 0;
+		int count = 0;
+		for(int i = 0; i < bs.size; i++) {
+			if(bs.mass[i] != 0) {
+				double ax = bs.fx[i] / bs.mass[i];
+				double ay = bs.fy[i] / bs.mass[i];
+				a2 += ax*ax + ay*ay;
+				count++;
+			}
+		}
+		return count > 0 ? a2 / count : 0;
+	}
+
+	// v = v + a*h
+	private void kick(BodyStore bs, int i, double h) {
+		if(bs.mass[i] != 0) {
+			bs.vx[i] = bs.vx[i] + bs.fx[i] * (1.0/bs.mass[i]) * h;
+			bs.vy[i] = bs.vy[i] + bs.fy[i] * (1.0/bs.mass[i]) * h;
+		}
+	}
+
+	// duracion en ticks del paso actual de i
+	private long length(int i) {
+		return 1L << (levels - level[i]);
+	}
+
+	// numero de fuerzas sobre un cuerpo calculadas hasta ahora
+	public long getEvaluations() {
+		return evaluations;
+	}
+
+	public String toString() {
+		return "Block time steps with " + levels + " levels and eta=" + eta;
+	}
+}
@@ -0,0 +1,68 @@
+package simulator.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/*
+ * Copia de la lista de cuerpos del simulador en un momento dado, para los
+ * observadores que la leen en otro hilo mientras la simulacion sigue. Los
+ * datos se copian a un almacen propio y los cuerpos de la copia son vistas
+ * de la clase Body sobre el, aunque los originales sean de otra clase.
+ */
+class BodiesSnapshot extends AbstractList<Body> implements RandomAccess {
+
+	private BodyStore store;
+	private Body[] views;
+
+	BodiesSnapshot(List<Body> bodies) {
+		store = new BodyStore(bodies.size());
+		views = new Body[store.ids.length];
+		copy(bodies);
+	}
+
+	// sustituye la copia por el estado actual de bodies; solo se puede hacer
+	// mientras nadie la esta leyendo
+	void copy(List<Body> bodies) {
+		int n = bodies.size();
+		if(views.length < n) {
+			store = new BodyStore(Math.max(n, 2 * views.length));
+			views = new Body[store.ids.length];
+		}
+		BodyStore dst = store;
+		for(int i = 0; i < n; i++) {
+			Body b = bodies.get(i);
+			BodyStore s = b.store;
+			int j = b.index;
+			dst.ids[i] = b.id;
+			dst.mass[i] = s.mass[j];
+			dst.px[i] = s.px[j];
+			dst.py[i] = s.py[j];
+			dst.vx[i] = s.vx[j];
+			dst.vy[i] = s.vy[j];
+			dst.fx[i] = s.fx[j];
+			dst.fy[i] = s.fy[j];
+			if(views[i] == null) {
+				views[i] = new Body(b.id, dst, i);
+			}
+			else {
+				views[i].id = b.id;
+			}
+			dst.bodies[i] = views[i];
+		}
+		dst.size = n;
+	}
+
+	@Override
+	public Body get(int i) {
+		if(i < 0 || i >= store.size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + store.size);
+		}
+		return views[i];
+	}
+
+	@Override
+	public int size() {
+		return store.size;
+	}
+}
@@ -3,21 +3,38 @@ package simulator.model;
 
 import org.json.JSONObject;
 
+import simulator.misc.MutableVector2D;
 import simulator.misc.Vector2D;
 
 public class Body {
 	protected String id;
-	protected Vector2D velocity;
-	protected Vector2D force;
-	protected Vector2D position;
-	protected double mass;
+	protected BodyStore store; // almacen donde estan los datos del cuerpo, null si no esta en ninguno
+	protected int index; // posicion del cuerpo en el almacen
+	
+	// datos del cuerpo mientras no esta en ningun almacen
+	private double m;
+	private double px;
+	private double py;
+	private double vx;
+	private double vy;
+	private double fx;
+	private double fy;
 	
 	public Body(String id, Vector2D v, Vector2D p, double m) {
 		this.id = id;
-		velocity = v; //new Vector2D(v);
-		force = new Vector2D();
-		position = p; //new Vector2D(p);
-		mass = m;
+		this.m = m;
+		this.px = p.getX();
+		this.py = p.getY();
+		this.vx = v.getX();
+		this.vy = v.getY();
+		this.index = -1;
+	}
+	
+	// vista sobre la posicion i de un almacen que ya tiene los datos (copias)
+	Body(String id, BodyStore s, int i) {
+		this.id = id;
+		store = s;
+		index = i;
 	}
 	
 	public String getId() {
@@ -25,43 +42,63 @@ public class Body {
 	}
 	
 	public Vector2D getVelocity() {
-		return velocity;
+		return store == null ? new Vector2D(vx, vy) : new Vector2D(store.vx[index], store.vy[index]);
 	}
 
 	public Vector2D getForce() {
-		return force;
+		return store == null ? new Vector2D(fx, fy) : new Vector2D(store.fx[index], store.fy[index]);
 	}
 
 	public Vector2D getPosition() {
-		return position;
+		return store == null ? new Vector2D(px, py) : new Vector2D(store.px[index], store.py[index]);
 	}
 
 	public double getMass() {
-		return mass;
+		return store == null ? m : store.mass[index];
 	}
 	
-	void addForce(Vector2D f) {
-		force = force.plus(f);
+	// versiones que copian el vector en dst en lugar de crear uno nuevo
+	public MutableVector2D getVelocity(MutableVector2D dst) {
+		return store == null ? dst.set(vx, vy) : dst.set(store.vx[index], store.vy[index]);
 	}
 	
-	void resetForce() {
-		force = new Vector2D();
+	public MutableVector2D getForce(MutableVector2D dst) {
+		return store == null ? dst.set(fx, fy) : dst.set(store.fx[index], store.fy[index]);
 	}
 	
-	void move(double t) {
-		//aceleration vector
-		Vector2D a;
-		if(mass==0) {
-			a = new Vector2D();
-		}
-		else {
-			a = force.scale(1.0/mass);
+	public MutableVector2D getPosition(MutableVector2D dst) {
+		return store == null ? dst.set(px, py) : dst.set(store.px[index], store.py[index]);
+	}
+	
+	// mueve los datos del cuerpo al almacen s
+	void attach(BodyStore s) {
+		detach();
+		int i = s.add(this, m, px, py, vx, vy);
+		s.fx[i] = fx;
+		s.fy[i] = fy;
+		store = s;
+		index = i;
+	}
+	
+	// copia los datos del almacen al cuerpo, antes de que se vacie el almacen
+	// o se quite el cuerpo de el
+	void detach() {
+		if(store != null) {
+			m = store.mass[index];
+			px = store.px[index];
+			py = store.py[index];
+			vx = store.vx[index];
+			vy = store.vy[index];
+			fx = store.fx[index];
+			fy = store.fy[index];
+			store = null;
+			index = -1;
 		}
-		
-		// update position vector
-		position = position.plus(velocity.scale(t).plus(a.scale(t*t/2)));
-        // update velocity vector
-        velocity = velocity.plus(a.scale(t));
+	}
+	
+	// los trazadores notan las fuerzas de los demas cuerpos pero no las producen
+	public boolean isTracer() {
+		return false;
 	}
 	
 	public boolean equals(Object obj) {
@@ -86,14 +123,19 @@ public class Body {
 		return iguales;
 	}
 	
+	// coherente con equals: los cuerpos iguales tienen el mismo id
+	public int hashCode() {
+		return id.hashCode();
+	}
+	
 	public JSONObject getState() {
 		JSONObject j = new JSONObject();
 		
 		j.put("id", id);
-		j.put("m", mass);
-		j.put("p", position.asJSONArray());
-		j.put("v", velocity.asJSONArray());
-		j.put("f", force.asJSONArray());
+		j.put("m", getMass());
+		j.put("p", getPosition().asJSONArray());
+		j.put("v", getVelocity().asJSONArray());
+		j.put("f", getForce().asJSONArray());
 		
 		return j;
 	}
@@ -0,0 +1,32 @@
+package simulator.model;
+
+/*
+ * Leyes en las que la fuerza sobre cada cuerpo solo depende de ese cuerpo
+ * (posicion, velocidad, masa), no de los demas. CompositeForceLaws las
+ * aplica todas juntas, bloque a bloque, en una sola pasada por los cuerpos.
+ */
+public interface BodyForceLaws extends ForceLaws {
+	// suma a fx y fy de los cuerpos [from, to) su fuerza
+	public void applyRange(BodyStore bs, int from, int to);
+
+	@Override
+	public default void apply(BodyStore bs) {
+		if(bs.isParallel()) {
+			bs.forEachRange((from, to) -> applyRange(bs, from, to));
+		}
+		else {
+			applyRange(bs, 0, bs.size);
+		}
+	}
+
+	// la fuerza de cada activo solo depende de el
+	@Override
+	public default void apply(BodyStore bs, int[] active, int count) {
+		for(int k = 0; k < count; k++) {
+			int i = active[k];
+			bs.fx[i] = 0;
+			bs.fy[i] = 0;
+			applyRange(bs, i, i + 1);
+		}
+	}
+}
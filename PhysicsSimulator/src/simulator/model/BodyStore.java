@@ -0,0 +1,312 @@
+package simulator.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Almacen de cuerpos en forma de estructura de arrays: cada magnitud de los
+ * cuerpos se guarda en un array de double, de modo que las leyes de fuerza y
+ * el movimiento trabajan con indices y no crean objetos Vector2D.
+ * Los objetos Body son vistas sobre una posicion de este almacen.
+ */
+public class BodyStore {
+
+	// tamano de los bloques de cuerpos que se reparten entre los hilos
+	private static final int CHUNK = 128;
+
+	// tarea sobre los cuerpos [from, to)
+	interface RangeTask {
+		void run(int from, int to);
+	}
+
+	String[] ids;
+	Body[] bodies;
+	double[] mass;
+	double[] px;
+	double[] py;
+	double[] vx;
+	double[] vy;
+	double[] fx;
+	double[] fy;
+	boolean[] tracer; // notan las fuerzas de los demas pero no las producen
+	int size;
+	int modCount; // cambia cada vez que se anaden o se quitan cuerpos
+	int tracers; // numero de trazadores
+	int[] sources; // indices de los que no son trazadores
+	int[] sourceSlot; // posicion de cada cuerpo en sources
+	int sourceCount;
+	// los cuerpos que pierden masa, en un lote aparte para hacer la perdida de
+	// todos en un solo bucle: losing[k] es el indice del cuerpo k del lote y
+	// lossSlot[i] la posicion del cuerpo i en el lote (-1 si no pierde masa)
+	int[] lossSlot;
+	int[] losing;
+	double[] lossFactor;
+	double[] lossFrequency;
+	double[] lossCounter; // tiempo desde la ultima perdida
+	int losingCount;
+	boolean forcesValid; // fx y fy son las fuerzas de las posiciones y masas actuales
+	double forcesAge; // tiempo entre las posiciones con las que se calcularon fx y fy y el final del ultimo paso
+	private ForkJoinPool pool; // null si se trabaja en un solo hilo
+
+	public BodyStore(int capacity) {
+		capacity = Math.max(capacity, 1);
+		ids = new String[capacity];
+		bodies = new Body[capacity];
+		mass = new double[capacity];
+		px = new double[capacity];
+		py = new double[capacity];
+		vx = new double[capacity];
+		vy = new double[capacity];
+		fx = new double[capacity];
+		fy = new double[capacity];
+		tracer = new boolean[capacity];
+		sources = new int[capacity];
+		sourceSlot = new int[capacity];
+		lossSlot = new int[capacity];
+		losing = new int[0];
+		lossFactor = new double[0];
+		lossFrequency = new double[0];
+		lossCounter = new double[0];
+		size = 0;
+	}
+
+	int add(Body b, double m, double px, double py, double vx, double vy) {
+		if(size == ids.length) {
+			grow(2 * size);
+		}
+		int i = size++;
+		this.ids[i] = b.getId();
+		this.bodies[i] = b;
+		this.mass[i] = m;
+		this.px[i] = px;
+		this.py[i] = py;
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+		this.fx[i] = 0.0;
+		this.fy[i] = 0.0;
+		this.tracer[i] = b.isTracer();
+		if(this.tracer[i]) {
+			tracers++;
+		}
+		else {
+			sourceSlot[i] = sourceCount;
+			sources[sourceCount++] = i;
+		}
+		this.lossSlot[i] = -1;
+		modCount++;
+		forcesValid = false;
+		return i;
+	}
+
+	/*
+	 * Quita el cuerpo i en O(1): el ultimo cuerpo pasa a la posicion i (y su
+	 * Body cambia de indice). En sources y en el lote de perdida de masa se
+	 * hace lo mismo, asi que dejan de estar ordenados.
+	 */
+	void remove(int i) {
+		int last = size - 1;
+		if(tracer[i]) {
+			tracers--;
+		}
+		else {
+			int s = sourceSlot[i];
+			sources[s] = sources[--sourceCount];
+			sourceSlot[sources[s]] = s;
+		}
+		int k = lossSlot[i];
+		if(k >= 0) {
+			int lk = --losingCount;
+			losing[k] = losing[lk];
+			lossFactor[k] = lossFactor[lk];
+			lossFrequency[k] = lossFrequency[lk];
+			lossCounter[k] = lossCounter[lk];
+			lossSlot[losing[k]] = k;
+		}
+		if(i != last) {
+			ids[i] = ids[last];
+			bodies[i] = bodies[last];
+			mass[i] = mass[last];
+			px[i] = px[last];
+			py[i] = py[last];
+			vx[i] = vx[last];
+			vy[i] = vy[last];
+			fx[i] = fx[last];
+			fy[i] = fy[last];
+			tracer[i] = tracer[last];
+			sourceSlot[i] = sourceSlot[last];
+			lossSlot[i] = lossSlot[last];
+			if(!tracer[i]) {
+				sources[sourceSlot[i]] = i;
+			}
+			if(lossSlot[i] >= 0) {
+				losing[lossSlot[i]] = i;
+			}
+			bodies[i].index = i;
+		}
+		ids[last] = null;
+		bodies[last] = null;
+		size = last;
+		modCount++;
+		forcesValid = false;
+	}
+
+	// el cuerpo i pasa al lote de los que pierden masa
+	void addMassLoss(int i, double factor, double frequency, double counter) {
+		if(losingCount == losing.length) {
+			int cap = Math.max(4, 2 * losingCount);
+			losing = Arrays.copyOf(losing, cap);
+			lossFactor = Arrays.copyOf(lossFactor, cap);
+			lossFrequency = Arrays.copyOf(lossFrequency, cap);
+			lossCounter = Arrays.copyOf(lossCounter, cap);
+		}
+		int k = losingCount++;
+		losing[k] = i;
+		lossFactor[k] = factor;
+		lossFrequency[k] = frequency;
+		lossCounter[k] = counter;
+		lossSlot[i] = k;
+	}
+
+	// lo que les pasa a los cuerpos con el tiempo aparte de moverse; los
+	// integradores lo llaman una vez por paso, despues de moverlos
+	void advanceTime(double t) {
+		for(int k = 0; k < losingCount; k++) {
+			lossCounter[k] += t;
+			if(lossCounter[k] >= lossFrequency[k]) {
+				int i = losing[k];
+				mass[i] = mass[i]*(1-lossFactor[k]);
+				forcesValid = false;
+				lossCounter[k] = 0.0;
+			}
+		}
+	}
+
+	void clear() {
+		Arrays.fill(ids, 0, size, null);
+		Arrays.fill(bodies, 0, size, null);
+		size = 0;
+		tracers = 0;
+		sourceCount = 0;
+		losingCount = 0;
+		modCount++;
+		forcesValid = false;
+	}
+
+	void resetForces() {
+		Arrays.fill(fx, 0, size, 0.0);
+		Arrays.fill(fy, 0, size, 0.0);
+	}
+
+	// numero de hilos para forEachRange, 0 para trabajar en el hilo que llama
+	void setThreads(int threads) {
+		if(pool != null) {
+			pool.shutdown();
+		}
+		pool = threads > 0 ? new ForkJoinPool(threads) : null;
+	}
+
+	/*
+	 * Ejecuta la tarea sobre todos los cuerpos. En modo paralelo los indices se
+	 * reparten en bloques de CHUNK cuerpos; cada cuerpo lo procesa una unica
+	 * tarea, asi que si la tarea solo escribe en los cuerpos de su rango el
+	 * resultado no depende del numero de hilos.
+	 */
+	void forEachRange(RangeTask task) {
+		if(pool == null) {
+			task.run(0, size);
+		}
+		else {
+			pool.invoke(new RangeAction(task, 0, size));
+		}
+	}
+
+	private static class RangeAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private RangeTask task;
+		private int from;
+		private int to;
+
+		RangeAction(RangeTask task, int from, int to) {
+			this.task = task;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= CHUNK) {
+				task.run(from, to);
+			}
+			else {
+				int mid = from + Math.max(1, (to - from) / CHUNK / 2) * CHUNK;
+				invokeAll(new RangeAction(task, from, mid), new RangeAction(task, mid, to));
+			}
+		}
+	}
+
+	boolean isParallel() {
+		return pool != null;
+	}
+
+	private void grow(int capacity) {
+		ids = Arrays.copyOf(ids, capacity);
+		bodies = Arrays.copyOf(bodies, capacity);
+		mass = Arrays.copyOf(mass, capacity);
+		px = Arrays.copyOf(px, capacity);
+		py = Arrays.copyOf(py, capacity);
+		vx = Arrays.copyOf(vx, capacity);
+		vy = Arrays.copyOf(vy, capacity);
+		fx = Arrays.copyOf(fx, capacity);
+		fy = Arrays.copyOf(fy, capacity);
+		tracer = Arrays.copyOf(tracer, capacity);
+		sources = Arrays.copyOf(sources, capacity);
+		sourceSlot = Arrays.copyOf(sourceSlot, capacity);
+		lossSlot = Arrays.copyOf(lossSlot, capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Body getBody(int i) {
+		return bodies[i];
+	}
+
+	public boolean isTracer(int i) {
+		return tracer[i];
+	}
+
+	public String getId(int i) {
+		return ids[i];
+	}
+
+	public double getMass(int i) {
+		return mass[i];
+	}
+
+	public double getPositionX(int i) {
+		return px[i];
+	}
+
+	public double getPositionY(int i) {
+		return py[i];
+	}
+
+	public double getVelocityX(int i) {
+		return vx[i];
+	}
+
+	public double getVelocityY(int i) {
+		return vy[i];
+	}
+
+	public double getForceX(int i) {
+		return fx[i];
+	}
+
+	public double getForceY(int i) {
+		return fy[i];
+	}
+}
@@ -0,0 +1,126 @@
+package simulator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Suma de varias leyes de fuerza. Las que dependen de parejas de cuerpos se
+ * aplican una detras de otra, cada una con su propio recorrido. Las que solo
+ * dependen de cada cuerpo (BodyForceLaws) se aplican juntas: los cuerpos se
+ * recorren una vez en bloques de BLOCK y a cada bloque se le aplican todas,
+ * mientras sus datos siguen en la cache, asi que anadir una ley de este tipo
+ * no supone otra pasada por memoria.
+ *
+ * Con un subconjunto de cuerpos activos (pasos por bloques) cada ley de
+ * parejas calcula solo los activos y las de cada cuerpo se aplican solo a
+ * ellos. Como cada ley de parejas deja en los activos su propia fuerza, con
+ * mas de una se van sumando aparte.
+ */
+public class CompositeForceLaws implements ForceLaws {
+
+	private static final int BLOCK = 512;
+
+	private List<ForceLaws> laws;
+	private ForceLaws[] pairLaws;
+	private BodyForceLaws[] bodyLaws;
+
+	private BodyStore.RangeTask fused; // se crea una vez para no generar basura en cada paso
+	private BodyStore bs;
+	private double[] sumX; // suma de las leyes de parejas en los activos
+	private double[] sumY;
+
+	public CompositeForceLaws(List<ForceLaws> laws) {
+		if(laws.isEmpty()) {
+			throw new IllegalArgumentException("Hace falta al menos una ley de fuerza");
+		}
+		this.laws = new ArrayList<>(laws);
+
+		List<ForceLaws> pair = new ArrayList<>();
+		List<BodyForceLaws> body = new ArrayList<>();
+		for(ForceLaws fl: laws) {
+			if(fl instanceof BodyForceLaws) {
+				body.add((BodyForceLaws) fl);
+			}
+			else {
+				pair.add(fl);
+			}
+		}
+		this.pairLaws = pair.toArray(new ForceLaws[0]);
+		this.bodyLaws = body.toArray(new BodyForceLaws[0]);
+		this.sumX = new double[0];
+		this.sumY = new double[0];
+
+		fused = (from, to) -> {
+			for(int b = from; b < to; b += BLOCK) {
+				int e = Math.min(to, b + BLOCK);
+				for(BodyForceLaws fl: bodyLaws) {
+					fl.applyRange(bs, b, e);
+				}
+			}
+		};
+	}
+
+	@Override
+	public void apply(BodyStore bs) {
+		for(ForceLaws fl: pairLaws) {
+			fl.apply(bs);
+		}
+		if(bodyLaws.length > 0) {
+			this.bs = bs;
+			bs.forEachRange(fused);
+		}
+	}
+
+	@Override
+	public void apply(BodyStore bs, int[] active, int count) {
+		if(pairLaws.length == 0) {
+			for(int k = 0; k < count; k++) {
+				bs.fx[active[k]] = 0;
+				bs.fy[active[k]] = 0;
+			}
+		}
+		else if(pairLaws.length == 1) {
+			pairLaws[0].apply(bs, active, count);
+		}
+		else {
+			if(sumX.length < count) {
+				int cap = Math.max(count, 2 * sumX.length);
+				sumX = new double[cap];
+				sumY = new double[cap];
+			}
+			for(int k = 0; k < count; k++) {
+				sumX[k] = 0;
+				sumY[k] = 0;
+			}
+			for(ForceLaws fl: pairLaws) {
+				fl.apply(bs, active, count);
+				for(int k = 0; k < count; k++) {
+					sumX[k] += bs.fx[active[k]];
+					sumY[k] += bs.fy[active[k]];
+				}
+			}
+			for(int k = 0; k < count; k++) {
+				bs.fx[active[k]] = sumX[k];
+				bs.fy[active[k]] = sumY[k];
+			}
+		}
+		for(int k = 0; k < count; k++) {
+			int i = active[k];
+			for(BodyForceLaws fl: bodyLaws) {
+				fl.applyRange(bs, i, i + 1);
+			}
+		}
+	}
+
+	public String toString()
+	{
+		StringBuilder s = new StringBuilder();
+		for(ForceLaws fl: laws) {
+			if(s.length() > 0) {
+				s.append(" + ");
+			}
+			s.append(fl);
+		}
+		return s.toString();
+	}
+}
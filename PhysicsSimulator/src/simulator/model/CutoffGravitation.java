@@ -0,0 +1,40 @@
+package simulator.model;
+
+/*
+ * Gravitacion suavizada que se anula a partir de una distancia de corte:
+ * la fuerza sobre i es G*mi*mj*d/(|d|^2 + eps^2)^(3/2) si |d| < cutoff y
+ * cero en otro caso. Con eps = 0 y un corte mayor que el sistema coincide
+ * con "nlug".
+ */
+public class CutoffGravitation extends ShortRangeForceLaws {
+
+	protected double G;
+	protected double eps;
+	private double eps2;
+
+	public CutoffGravitation(double g, double eps, double cutoff, double skin) {
+		super(cutoff, skin);
+		if(eps < 0) {
+			throw new IllegalArgumentException("Suavizado no valido");
+		}
+		this.G = g;
+		this.eps = eps;
+		this.eps2 = eps * eps;
+	}
+
+	@Override
+	protected double pairForce(double r2, double mi, double mj) {
+		double d2 = r2 + eps2;
+		if(d2 == 0.0) {
+			return 0.0;
+		}
+		double inv = 1.0 / Math.sqrt(d2);
+
+		return G * (mi*mj) * (inv*inv*inv);
+	}
+
+	public String toString()
+	{
+		return "Softened gravitation with G=" + this.G + ", eps=" + this.eps + " and cutoff " + this.cutoff;
+	}
+}
@@ -0,0 +1,30 @@
+package simulator.model;
+
+/*
+ * Criterio para quitar de la simulacion los cuerpos que ya no interesan: los
+ * que estan a mas de radius del origen y los que tienen masa menor que
+ * minMass (por ejemplo un MassLosingBody al que ya casi no le queda masa).
+ * El simulador lo comprueba despues de cada paso y los quita todos juntos.
+ */
+public class EscapeCriterion {
+
+	protected double radius; // infinito para no quitar ninguno por distancia
+	protected double minMass; // 0 para no quitar ninguno por masa
+
+	public EscapeCriterion(double radius, double minMass) {
+		if(!(radius > 0) || !(minMass >= 0)) {
+			throw new IllegalArgumentException("Criterio de escape no valido");
+		}
+		this.radius = radius;
+		this.minMass = minMass;
+	}
+
+	boolean escaped(BodyStore bs, int i) {
+		double x = bs.px[i], y = bs.py[i];
+		return x*x + y*y > radius*radius || bs.mass[i] < minMass;
+	}
+
+	public String toString() {
+		return "Escape criterion with radius=" + radius + " and minimum mass=" + minMass;
+	}
+}
@@ -0,0 +1,54 @@
+package simulator.model;
+
+/*
+ * El movimiento original de Body.move: las fuerzas se calculan una vez al
+ * principio del paso y con ellas se actualizan posicion y velocidad. Es de
+ * primer orden y no conserva la energia, pero es el que reproduce las
+ * salidas de siempre.
+ */
+public class EulerIntegrator implements Integrator {
+
+	// se crea una vez para no generar basura en cada paso; trabaja sobre los
+	// arrays del almacen, igual para todos los tipos de cuerpo
+	private BodyStore.RangeTask moveBodies;
+	private BodyStore bs;
+	private double dt;
+
+	public EulerIntegrator() {
+		moveBodies = (from, to) -> {
+			for(int i = from; i < to; i++) {
+				double ax, ay;
+				if(bs.mass[i]==0) {
+					ax = 0.0;
+					ay = 0.0;
+				}
+				else {
+					ax = bs.fx[i] * (1.0/bs.mass[i]);
+					ay = bs.fy[i] * (1.0/bs.mass[i]);
+				}
+				bs.px[i] = bs.px[i] + (bs.vx[i]*dt + ax*(dt*dt/2));
+				bs.py[i] = bs.py[i] + (bs.vy[i]*dt + ay*(dt*dt/2));
+				bs.vx[i] = bs.vx[i] + ax*dt;
+				bs.vy[i] = bs.vy[i] + ay*dt;
+			}
+		};
+	}
+
+	@Override
+	public void step(BodyStore bs, ForceLaws fl, double dt) {
+		bs.resetForces();
+		fl.apply(bs);
+
+		this.bs = bs;
+		this.dt = dt;
+		bs.forEachRange(moveBodies);
+		bs.advanceTime(dt);
+		// las fuerzas son las de las posiciones anteriores
+		bs.forcesValid = false;
+		bs.forcesAge = dt;
+	}
+
+	public String toString() {
+		return "Euler";
+	}
+}
@@ -0,0 +1,545 @@
+package simulator.model;
+
+/*
+ * Ley de gravitacion universal con el metodo multipolar rapido (FMM), de coste
+ * O(n).
+ *
+ * La fuerza del simulador es G*mi*mj*d/|d|^3, que es el gradiente del
+ * potencial 1/r. En el plano ese potencial no es armonico, asi que no sirven
+ * los desarrollos complejos (log z) del FMM 2D clasico, que corresponden a una
+ * fuerza 1/r. Se usan desarrollos de Taylor cartesianos de 1/r de orden total
+ * "order": momentos M(a,b) = sum m dx^a dy^b / (a! b!) y coeficientes locales
+ * L(a,b) = derivada (a,b) del potencial en el centro de la caja.
+ *
+ * Las cajas forman un quadtree uniforme de "levels" niveles sobre el cuadrado
+ * que contiene a los cuerpos, escalado a [-1,1]x[-1,1]. Dos cajas del mismo
+ * nivel interaccionan con M2L si no son vecinas; entre hojas vecinas la suma
+ * es directa. Las derivadas de 1/r se calculan con la recurrencia de
+ * McMurchie-Davidson, y como en cada nivel las separaciones posibles entre
+ * cajas son siempre las mismas se calculan una sola vez.
+ *
+ * Error relativo medio de la fuerza frente a "nlug", 20000 cuerpos en una
+ * distribucion gaussiana: 4.0e-3 con order 4, 1.3e-4 con order 8 y 1.1e-5
+ * con order 12. En los ejemplos de resources/examples (2 a 4 cuerpos) el
+ * arbol tiene una sola caja y la suma es directa, asi que el resultado
+ * coincide con "nlug" salvo por el orden de las sumas (diferencias relativas
+ * menores que 1e-12 en 2000 pasos).
+ */
+public class FastMultipoleGravitation implements ForceLaws {
+
+	private static final int LEAF_SIZE = 32; // cuerpos por hoja (aproximado)
+	private static final int MAX_LEVELS = 10;
+	private static final int MAX_ORDER = 20;
+
+	protected double G;
+	protected int order;
+	private int fixedLevels; // -1 para calcularlo segun el numero de cuerpos
+
+	// coeficiente i = (a, b), ordenados por grado a + b
+	private int ncoef;
+	private int[] ca;
+	private int[] cb;
+	private int[] plusX; // indice de (a+1, b), para el gradiente
+	private int[] plusY; // indice de (a, b+1)
+	private double[] sign; // (-1)^(a+b)
+
+	// recurrencia de las derivadas: R(i) = x*R'(src1) + fac*R'(src2) (o con y)
+	private int[] recSrc1;
+	private int[] recSrc2;
+	private double[] recFac;
+	private boolean[] recUseX;
+
+	// M2L: L[m2lL] += sign(m2lM) * M[m2lM] * D[m2lD]
+	private int[] m2lL;
+	private int[] m2lM;
+	private int[] m2lD;
+
+	// pares (hi, lo) con lo <= hi componente a componente, y el indice de hi - lo
+	private int[] shiftHi;
+	private int[] shiftLo;
+	private int[] shiftDiff;
+
+	// arbol
+	private int levels;
+	private int[] levelStart; // primera caja de cada nivel
+	private int[] count; // cuerpos en cada caja
+	private double[] mom; // ncoef momentos por caja
+	private double[] loc; // ncoef coeficientes locales por caja
+	private double[][] dtab; // derivadas por nivel para cada separacion (-3..3)^2
+
+	// cuerpos con masa, ordenados por hoja
+	private int[] leafStart;
+	private int[] leafOf;
+	private int[] sorted; // indice en el almacen
+	private double[] ux;
+	private double[] uy;
+	private double[] um;
+	private double[] gx;
+	private double[] gy;
+
+	// auxiliares
+	private double[] mono;
+	private double[] powX;
+	private double[] powY;
+	private double[] rA;
+	private double[] rB;
+	private double[] r00;
+
+	public FastMultipoleGravitation(double g, int order) {
+		this(g, order, -1);
+	}
+
+	// levels >= 0 fija el numero de niveles del arbol (para pruebas)
+	FastMultipoleGravitation(double g, int order, int levels) {
+		if(order < 1 || order > MAX_ORDER) {
+			throw new IllegalArgumentException("Orden no valido");
+		}
+		if(levels > MAX_LEVELS) {
+			throw new IllegalArgumentException("Numero de niveles no valido");
+		}
+		this.G = g;
+		this.order = order;
+		this.fixedLevels = levels;
+		this.levels = -1;
+		this.leafOf = new int[0];
+		this.ux = new double[0];
+		initTables();
+	}
+
+	private static int idx(int a, int b) {
+		int k = a + b;
+		return k*(k+1)/2 + b;
+	}
+
+	private void initTables() {
+		int p = order;
+		ncoef = (p+1)*(p+2)/2;
+		ca = new int[ncoef];
+		cb = new int[ncoef];
+		plusX = new int[ncoef];
+		plusY = new int[ncoef];
+		sign = new double[ncoef];
+		recSrc1 = new int[ncoef];
+		recSrc2 = new int[ncoef];
+		recFac = new double[ncoef];
+		recUseX = new boolean[ncoef];
+
+		for(int k = 0; k <= p; k++) {
+			for(int b = 0; b <= k; b++) {
+				int a = k - b;
+				int i = idx(a, b);
+				ca[i] = a;
+				cb[i] = b;
+				plusX[i] = k < p ? idx(a+1, b) : -1;
+				plusY[i] = k < p ? idx(a, b+1) : -1;
+				sign[i] = k % 2 == 0 ? 1 : -1;
+				if(a > 0) {
+					recUseX[i] = true;
+					recSrc1[i] = idx(a-1, b);
+					recSrc2[i] = a > 1 ? idx(a-2, b) : 0;
+					recFac[i] = a - 1;
+				}
+				else if(b > 0) {
+					recUseX[i] = false;
+					recSrc1[i] = idx(0, b-1);
+					recSrc2[i] = b > 1 ? idx(0, b-2) : 0;
+					recFac[i] = b - 1;
+				}
+			}
+		}
+
+		int nm2l = 0, nshift = 0;
+		for(int i = 0; i < ncoef; i++) {
+			for(int j = 0; j < ncoef; j++) {
+				if(ca[i] + cb[i] + ca[j] + cb[j] <= p) {
+					nm2l++;
+				}
+				if(ca[j] <= ca[i] && cb[j] <= cb[i]) {
+					nshift++;
+				}
+			}
+		}
+		m2lL = new int[nm2l];
+		m2lM = new int[nm2l];
+		m2lD = new int[nm2l];
+		shiftHi = new int[nshift];
+		shiftLo = new int[nshift];
+		shiftDiff = new int[nshift];
+		nm2l = 0;
+		nshift = 0;
+		for(int i = 0; i < ncoef; i++) {
+			for(int j = 0; j < ncoef; j++) {
+				if(ca[i] + cb[i] + ca[j] + cb[j] <= p) {
+					m2lL[nm2l] = i;
+					m2lM[nm2l] = j;
+					m2lD[nm2l] = idx(ca[i] + ca[j], cb[i] + cb[j]);
+					nm2l++;
+				}
+				if(ca[j] <= ca[i] && cb[j] <= cb[i]) {
+					shiftHi[nshift] = i;
+					shiftLo[nshift] = j;
+					shiftDiff[nshift] = idx(ca[i] - ca[j], cb[i] - cb[j]);
+					nshift++;
+				}
+			}
+		}
+
+		mono = new double[ncoef];
+		powX = new double[p+1];
+		powY = new double[p+1];
+		rA = new double[ncoef];
+		rB = new double[ncoef];
+		r00 = new double[p+1];
+	}
+
+	@Override
+	public void apply(BodyStore bs) {
+		int n = bs.size;
+		double[] px = bs.px, py = bs.py, m = bs.mass;
+
+		int na = 0;
+		double minX = 0, maxX = 0, minY = 0, maxY = 0;
+		for(int i = 0; i < n; i++) {
+			if(m[i] != 0) {
+				if(na == 0) {
+					minX = maxX = px[i];
+					minY = maxY = py[i];
+				}
+				else {
+					minX = Math.min(minX, px[i]);
+					maxX = Math.max(maxX, px[i]);
+					minY = Math.min(minY, py[i]);
+					maxY = Math.max(maxY, py[i]);
+				}
+				na++;
+			}
+		}
+		if(na < 2) {
+			return;
+		}
+
+		int l = fixedLevels;
+		if(l < 0) {
+			l = 0;
+			while(l < MAX_LEVELS && (1L << (2*l)) * LEAF_SIZE < na) {
+				l++;
+			}
+		}
+		prepare(l, na);
+
+		// cuadrado [-1,1]^2, un poco mayor para que ningun cuerpo caiga en el borde
+		double half = Math.max(maxX - minX, maxY - minY) / 2 * (1 + 1e-9);
+		if(half == 0 || Double.isInfinite(1 / half)) {
+			half = 1;
+		}
+		double s = 1 / half;
+		double ox = (minX + maxX) / 2, oy = (minY + maxY) / 2;
+
+		sortBodies(n, px, py, m, bs.tracer, ox, oy, s);
+		if(levels >= 2) {
+			upwardPass();
+			downwardPass();
+		}
+		leafPass();
+
+		// F = G*mi*grad(phi); el gradiente en coordenadas escaladas se multiplica por s^2
+		double k = G * s * s;
+		for(int t = 0; t < na; t++) {
+			int i = sorted[t];
+			bs.fx[i] += k * m[i] * gx[t];
+			bs.fy[i] += k * m[i] * gy[t];
+		}
+	}
+
+	private void prepare(int l, int na) {
+		if(l != levels) {
+			levels = l;
+			levelStart = new int[l + 2];
+			for(int i = 0; i <= l; i++) {
+				levelStart[i + 1] = levelStart[i] + (1 << (2*i));
+			}
+			int boxes = levelStart[l + 1];
+			count = new int[boxes];
+			leafStart = new int[(1 << (2*l)) + 1];
+			if(l >= 2) {
+				mom = new double[boxes * ncoef];
+				loc = new double[boxes * ncoef];
+				dtab = new double[l + 1][];
+				for(int lv = 2; lv <= l; lv++) {
+					dtab[lv] = new double[49 * ncoef];
+					double w = 2.0 / (1 << lv);
+					for(int dx = -3; dx <= 3; dx++) {
+						for(int dy = -3; dy <= 3; dy++) {
+							if(Math.abs(dx) > 1 || Math.abs(dy) > 1) {
+								derivatives(dx * w, dy * w, dtab[lv], ((dx+3)*7 + (dy+3)) * ncoef);
+							}
+						}
+					}
+				}
+			}
+		}
+		if(ux.length < na) {
+			int cap = Math.max(na, 2 * ux.length);
+			sorted = new int[cap];
+			ux = new double[cap];
+			uy = new double[cap];
+			um = new double[cap];
+			gx = new double[cap];
+			gy = new double[cap];
+		}
+	}
+
+	// cuerpos con masa ordenados por hoja (ordenacion por cuenta); los
+	// trazadores entran con masa 0 para que solo reciban fuerza
+	private void sortBodies(int n, double[] px, double[] py, double[] m, boolean[] tracer, double ox, double oy, double s) {
+		int side = 1 << levels;
+		int leaves = side * side;
+		if(leafOf.length < n) {
+			leafOf = new int[Math.max(n, 2 * leafOf.length)];
+		}
+
+		for(int c = 0; c <= leaves; c++) {
+			leafStart[c] = 0;
+		}
+		for(int i = 0; i < n; i++) {
+			if(m[i] != 0) {
+				int ix = Math.min(side - 1, (int) (((px[i] - ox) * s + 1) * 0.5 * side));
+				int iy = Math.min(side - 1, (int) (((py[i] - oy) * s + 1) * 0.5 * side));
+				int c = iy * side + ix;
+				leafOf[i] = c;
+				leafStart[c + 1]++;
+			}
+		}
+		for(int c = 0; c < leaves; c++) {
+			leafStart[c + 1] += leafStart[c];
+		}
+		int base = levelStart[levels];
+		for(int c = 0; c < leaves; c++) {
+			count[base + c] = leafStart[c + 1] - leafStart[c];
+		}
+		for(int i = 0; i < n; i++) {
+			if(m[i] != 0) {
+				// leafStart[c] avanza al colocar cada cuerpo y al final queda en el inicio de c+1
+				int t = leafStart[leafOf[i]]++;
+				sorted[t] = i;
+				ux[t] = (px[i] - ox) * s;
+				uy[t] = (py[i] - oy) * s;
+				um[t] = tracer[i] ? 0 : m[i];
+				gx[t] = 0;
+				gy[t] = 0;
+			}
+		}
+		for(int c = leaves; c > 0; c--) {
+			leafStart[c] = leafStart[c - 1];
+		}
+		leafStart[0] = 0;
+	}
+
+	private double center(int level, int i) {
+		return -1 + (i + 0.5) * (2.0 / (1 << level));
+	}
+
+	// P2M en las hojas y M2M hasta el nivel 2
+	private void upwardPass() {
+		int side = 1 << levels;
+		int base = levelStart[levels];
+		for(int iy = 0; iy < side; iy++) {
+			double cy = center(levels, iy);
+			for(int ix = 0; ix < side; ix++) {
+				int c = iy * side + ix;
+				int off = (base + c) * ncoef;
+				for(int k = 0; k < ncoef; k++) {
+					mom[off + k] = 0;
+				}
+				double cx = center(levels, ix);
+				for(int t = leafStart[c]; t < leafStart[c + 1]; t++) {
+					monomials(ux[t] - cx, uy[t] - cy);
+					for(int k = 0; k < ncoef; k++) {
+						mom[off + k] += um[t] * mono[k];
+					}
+				}
+			}
+		}
+
+		for(int l = levels - 1; l >= 0; l--) {
+			int pside = 1 << l;
+			double d = 1.0 / (1 << (l + 1)); // distancia del centro del hijo al del padre
+			for(int iy = 0; iy < pside; iy++) {
+				for(int ix = 0; ix < pside; ix++) {
+					int parent = levelStart[l] + iy * pside + ix;
+					int off = parent * ncoef;
+					count[parent] = 0;
+					if(l >= 2) {
+						for(int k = 0; k < ncoef; k++) {
+							mom[off + k] = 0;
+						}
+					}
+					for(int q = 0; q < 4; q++) {
+						int cx = 2*ix + (q & 1), cy = 2*iy + (q >> 1);
+						int ch = levelStart[l + 1] + cy * (2*pside) + cx;
+						if(count[ch] == 0) {
+							continue;
+						}
+						count[parent] += count[ch];
+						if(l >= 2) {
+							monomials((q & 1) == 0 ? -d : d, (q >> 1) == 0 ? -d : d);
+							int choff = ch * ncoef;
+							for(int k = 0; k < shiftHi.length; k++) {
+								mom[off + shiftHi[k]] += mom[choff + shiftLo[k]] * mono[shiftDiff[k]];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// L2L desde el padre y M2L con la lista de interaccion, desde el nivel 2
+	private void downwardPass() {
+		for(int l = 2; l <= levels; l++) {
+			int side = 1 << l;
+			double d = 1.0 / side; // distancia del centro de la caja al del padre
+			double[] dt = dtab[l];
+			for(int iy = 0; iy < side; iy++) {
+				for(int ix = 0; ix < side; ix++) {
+					int box = levelStart[l] + iy * side + ix;
+					int off = box * ncoef;
+					for(int k = 0; k < ncoef; k++) {
+						loc[off + k] = 0;
+					}
+					if(count[box] == 0) {
+						continue;
+					}
+
+					if(l > 2) {
+						int parent = levelStart[l - 1] + (iy >> 1) * (side >> 1) + (ix >> 1);
+						int poff = parent * ncoef;
+						monomials((ix & 1) == 0 ? -d : d, (iy & 1) == 0 ? -d : d);
+						for(int k = 0; k < shiftHi.length; k++) {
+							loc[off + shiftLo[k]] += loc[poff + shiftHi[k]] * mono[shiftDiff[k]];
+						}
+					}
+
+					// hijos de los vecinos del padre que no son vecinos de la caja
+					int x0 = Math.max(0, (ix & ~1) - 2), x1 = Math.min(side - 1, (ix | 1) + 2);
+					int y0 = Math.max(0, (iy & ~1) - 2), y1 = Math.min(side - 1, (iy | 1) + 2);
+					for(int sy = y0; sy <= y1; sy++) {
+						for(int sx = x0; sx <= x1; sx++) {
+							int rx = ix - sx, ry = iy - sy;
+							int src = levelStart[l] + sy * side + sx;
+							if((Math.abs(rx) <= 1 && Math.abs(ry) <= 1) || count[src] == 0) {
+								continue;
+							}
+							int soff = src * ncoef;
+							int doff = ((rx+3)*7 + (ry+3)) * ncoef;
+							for(int k = 0; k < m2lL.length; k++) {
+								int j = m2lM[k];
+								loc[off + m2lL[k]] += sign[j] * mom[soff + j] * dt[doff + m2lD[k]];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// L2P y suma directa con las hojas vecinas
+	private void leafPass() {
+		int side = 1 << levels;
+		int base = levelStart[levels];
+		for(int iy = 0; iy < side; iy++) {
+			for(int ix = 0; ix < side; ix++) {
+				int c = iy * side + ix;
+				if(leafStart[c] == leafStart[c + 1]) {
+					continue;
+				}
+				int off = (base + c) * ncoef;
+				double cx = center(levels, ix), cy = center(levels, iy);
+				int x0 = Math.max(0, ix - 1), x1 = Math.min(side - 1, ix + 1);
+				int y0 = Math.max(0, iy - 1), y1 = Math.min(side - 1, iy + 1);
+
+				for(int t = leafStart[c]; t < leafStart[c + 1]; t++) {
+					double fx = 0, fy = 0;
+					double xi = ux[t], yi = uy[t];
+
+					if(levels >= 2) {
+						monomials(xi - cx, yi - cy);
+						for(int k = 0; plusX[k] >= 0; k++) {
+							fx += loc[off + plusX[k]] * mono[k];
+							fy += loc[off + plusY[k]] * mono[k];
+						}
+					}
+
+					for(int ny = y0; ny <= y1; ny++) {
+						for(int nx = x0; nx <= x1; nx++) {
+							int nc = ny * side + nx;
+							for(int j = leafStart[nc]; j < leafStart[nc + 1]; j++) {
+								double dx = ux[j] - xi;
+								double dy = uy[j] - yi;
+								double r2 = dx*dx + dy*dy;
+								if(r2 > 0) {
+									double inv = 1.0 / Math.sqrt(r2);
+									double w = um[j] * (inv*inv*inv);
+									fx += w * dx;
+									fy += w * dy;
+								}
+							}
+						}
+					}
+					gx[t] = fx;
+					gy[t] = fy;
+				}
+			}
+		}
+	}
+
+	// mono[(a,b)] = x^a/a! * y^b/b!
+	private void monomials(double x, double y) {
+		powX[0] = 1;
+		powY[0] = 1;
+		for(int k = 1; k <= order; k++) {
+			powX[k] = powX[k-1] * x / k;
+			powY[k] = powY[k-1] * y / k;
+		}
+		for(int k = 0; k < ncoef; k++) {
+			mono[k] = powX[ca[k]] * powY[cb[k]];
+		}
+	}
+
+	/*
+	 * Derivadas (a,b) de 1/r en (x, y), a + b <= order, en out[off..]. Con
+	 * R(n; 0,0) = (-1)^n (2n-1)!! / r^(2n+1) y
+	 *   R(n; a+1,b) = a R(n+1; a-1,b) + x R(n+1; a,b)   (igual con y)
+	 * la derivada (a,b) es R(0; a,b).
+	 */
+	private void derivatives(double x, double y, double[] out, int off) {
+		double inv2 = 1 / (x*x + y*y);
+		r00[0] = Math.sqrt(inv2);
+		for(int k = 1; k <= order; k++) {
+			r00[k] = r00[k-1] * -(2*k - 1) * inv2;
+		}
+
+		double[] prev = rA, cur = rB;
+		prev[0] = r00[order];
+		for(int nn = order - 1; nn >= 0; nn--) {
+			cur[0] = r00[nn];
+			int last = (order - nn + 1)*(order - nn + 2)/2;
+			for(int i = 1; i < last; i++) {
+				double v = (recUseX[i] ? x : y) * prev[recSrc1[i]];
+				if(recFac[i] > 0) {
+					v += recFac[i] * prev[recSrc2[i]];
+				}
+				cur[i] = v;
+			}
+			double[] aux = prev;
+			prev = cur;
+			cur = aux;
+		}
+		System.arraycopy(prev, 0, out, off, ncoef);
+	}
+
+	public String toString()
+	{
+		return "Newton's Universal Gravitation (FMM, order " + this.order + ") with G=" + this.G;
+	}
+}
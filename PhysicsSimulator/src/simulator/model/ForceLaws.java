@@ -1,7 +1,16 @@
 package simulator.model;
 
-import java.util.List;
-
 public interface ForceLaws {
-	public void apply(List<Body> bs);
+	public void apply(BodyStore bs);
+	
+	/*
+	 * Calcula las fuerzas sobre los cuerpos active[0..count), debidas a todos
+	 * los cuerpos. Al terminar fx y fy de esos cuerpos tienen la fuerza total
+	 * (no hace falta ponerlas a cero antes); las de los demas pueden cambiar.
+	 * Por defecto se recalculan todas.
+	 */
+	public default void apply(BodyStore bs, int[] active, int count) {
+		bs.resetForces();
+		apply(bs);
+	}
 }
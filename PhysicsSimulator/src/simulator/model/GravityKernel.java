@@ -0,0 +1,11 @@
+package simulator.model;
+
+// bucle interior vectorizado de SimdGravitation
+interface GravityKernel {
+	// suma a fx y fy de los cuerpos [from, to) con masa la fuerza
+	// G*mi*mj*d/|d|^3 de las ns fuentes (sx, sy, sm)
+	public void forces(double g, double[] sx, double[] sy, double[] sm, int ns, BodyStore bs, int from, int to);
+
+	// numero de parejas que se calculan a la vez
+	public int lanes();
+}
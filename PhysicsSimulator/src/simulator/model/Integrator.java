@@ -0,0 +1,6 @@
+package simulator.model;
+
+public interface Integrator {
+	// avanza dt los cuerpos del almacen con las leyes de fuerza fl
+	public void step(BodyStore bs, ForceLaws fl, double dt);
+}
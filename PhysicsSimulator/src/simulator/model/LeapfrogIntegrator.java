@@ -0,0 +1,16 @@
+package simulator.model;
+
+// leapfrog en forma velocity Verlet: segundo orden, una llamada a las leyes
+// de fuerza por paso
+public class LeapfrogIntegrator extends SymplecticIntegrator {
+
+	@Override
+	public void step(BodyStore bs, ForceLaws fl, double dt) {
+		kickDriftKick(bs, fl, dt);
+		endStep(bs, dt);
+	}
+
+	public String toString() {
+		return "Leapfrog";
+	}
+}
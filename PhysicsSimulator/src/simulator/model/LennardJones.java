@@ -0,0 +1,40 @@
+package simulator.model;
+
+/*
+ * Potencial de Lennard-Jones U(r) = 4*epsilon*((sigma/r)^12 - (sigma/r)^6),
+ * truncado en cutoff. La fuerza no depende de la masa de los cuerpos: es
+ * repulsiva por debajo de 2^(1/6)*sigma y atractiva por encima.
+ */
+public class LennardJones extends ShortRangeForceLaws {
+
+	protected double epsilon;
+	protected double sigma;
+	private double sigma2;
+
+	public LennardJones(double epsilon, double sigma, double cutoff, double skin) {
+		super(cutoff, skin);
+		if(sigma <= 0) {
+			throw new IllegalArgumentException("Sigma no valido");
+		}
+		this.epsilon = epsilon;
+		this.sigma = sigma;
+		this.sigma2 = sigma * sigma;
+	}
+
+	// F sobre i = -24*epsilon*(2*(sigma/r)^12 - (sigma/r)^6)/r^2 * (pj - pi)
+	@Override
+	protected double pairForce(double r2, double mi, double mj) {
+		if(r2 == 0.0) {
+			return 0.0;
+		}
+		double s2 = sigma2 / r2;
+		double s6 = s2 * s2 * s2;
+
+		return -24 * epsilon * (2*s6*s6 - s6) / r2;
+	}
+
+	public String toString()
+	{
+		return "Lennard-Jones with epsilon=" + this.epsilon + ", sigma=" + this.sigma + " and cutoff " + this.cutoff;
+	}
+}
@@ -0,0 +1,27 @@
+package simulator.model;
+
+// rozamiento proporcional a la velocidad: f = -k*v
+public class LinearDrag implements BodyForceLaws {
+
+	protected double k;
+
+	public LinearDrag(double k) {
+		if(k < 0) {
+			throw new IllegalArgumentException("El coeficiente de rozamiento no puede ser negativo");
+		}
+		this.k = k;
+	}
+
+	@Override
+	public void applyRange(BodyStore bs, int from, int to) {
+		for(int i = from; i < to; i++) {
+			bs.fx[i] -= k * bs.vx[i];
+			bs.fy[i] -= k * bs.vy[i];
+		}
+	}
+
+	public String toString()
+	{
+		return "Linear drag with k=" + this.k;
+	}
+}
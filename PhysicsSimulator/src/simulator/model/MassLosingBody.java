@@ -2,11 +2,14 @@ package simulator.model;
 
 import simulator.misc.Vector2D;
 
+// mientras esta en un almacen los datos de la perdida de masa estan en su lote
+// (BodyStore.advanceTime)
 public class MassLosingBody extends Body {
 
-	protected double lossFactor;
-	protected double lossFrequency;
-	protected double contador;
+	// datos de la perdida de masa mientras no esta en ningun almacen
+	private double lossFactor;
+	private double lossFrequency;
+	private double contador;
 	
 	public MassLosingBody(String id, Vector2D v, Vector2D p, double m, double lFa, double lFr) {
 		super(id, v, p, m);
@@ -15,14 +18,18 @@ public class MassLosingBody extends Body {
 		contador = 0.0;
 	}
 	
-	void move(double t) {
-		super.move(t);
-		
-		contador += t;
-		
-		if(contador >= lossFrequency) {
-			mass = mass*(1-lossFactor);
-			contador = 0.0;
+	void attach(BodyStore s) {
+		super.attach(s);
+		s.addMassLoss(index, lossFactor, lossFrequency, contador);
+	}
+	
+	void detach() {
+		if(store != null) {
+			int k = store.lossSlot[index];
+			lossFactor = store.lossFactor[k];
+			lossFrequency = store.lossFrequency[k];
+			contador = store.lossCounter[k];
 		}
+		super.detach();
 	}
 }
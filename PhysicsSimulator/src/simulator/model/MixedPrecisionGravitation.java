@@ -0,0 +1,261 @@
+package simulator.model;
+
+/*
+ * Ley de gravitacion universal que calcula las parejas en float y suma las
+ * fuerzas de cada cuerpo en double. Las posiciones, velocidades y masas de
+ * los cuerpos siguen en double; solo se pasan a float, en arrays propios,
+ * las posiciones y masas que lee el bucle de parejas, que asi ocupan la
+ * mitad.
+ *
+ * Con los valores del simulador (masas de 1e30, distancias de 1e11) G*mi*mj
+ * y d^3 no caben en un float, asi que en cada paso las posiciones se toman
+ * respecto al centro del rectangulo que contiene a los cuerpos y se dividen
+ * por su semilado L, y las masas por la mayor M. La fuerza sobre i es
+ * G*mi*(M/L^2) por la suma en float de mj*d/|d|^3 de las cantidades
+ * escaladas. Al restar el origen en double antes de pasar a float no se
+ * pierde precision con un sistema alejado del (0,0).
+ *
+ * Cada pareja tiene un error relativo de unos 1e-7 (float). Dos cuerpos
+ * quedan en el mismo punto, y no se atraen, si estan a menos de unos 6e-8
+ * veces su distancia al centro; cerca del centro pueden estar mucho mas
+ * juntos, y para que 1/d^3 no se salga del float d^2 se toma como minimo
+ * D2_MIN (d de 1e-12*L), asi que parejas mas cercanas se atraen menos que en
+ * nlug. Frente a nlug,
+ * con 10000 cuerpos en un disco gaussiano el error relativo de la fuerza es
+ * 1.6e-6 de mediana y 2.7e-4 como maximo; en los ejemplos (dt 2500) la
+ * diferencia de posiciones, relativa al tamano del sistema, es de 1e-7 a
+ * 3e-6 tras 10000 pasos y de 1e-7 a 2e-4 tras 100000 (la mayor en ex2, que
+ * es caotico).
+ *
+ * Con trazadores las fuentes (bs.sources) se copian seguidas a sx, sy y sm,
+ * y como en nlug las parejas entre fuentes se calculan una vez y cada
+ * trazador solo recorre las fuentes.
+ */
+public class MixedPrecisionGravitation implements ForceLaws {
+
+	private double G;
+
+	private float[] x; // posiciones y masas escaladas
+	private float[] y;
+	private float[] m; // 0 para los trazadores, que no atraen
+	private double[] ax; // sumas de cada cuerpo, en double
+	private double[] ay;
+	private double scale; // G*M/L^2
+	private float[] sx; // las fuentes seguidas, cuando hay trazadores
+	private float[] sy;
+	private float[] sm;
+	private double[] sax; // sumas de las fuentes entre ellas
+	private double[] say;
+
+	// minimo de d^2 escalado: D2_MIN^-1.5 = 1e36 cabe en un float, y mj*w*d
+	// con d de hasta 1e-12 tambien
+	private static final float D2_MIN = 1e-24f;
+
+	public MixedPrecisionGravitation(double g) {
+		G = g;
+		x = new float[0];
+		y = new float[0];
+		m = new float[0];
+		ax = new double[0];
+		ay = new double[0];
+		sx = new float[0];
+		sy = new float[0];
+		sm = new float[0];
+		sax = new double[0];
+		say = new double[0];
+	}
+
+	@Override
+	public void apply(BodyStore bs) {
+		if(!toFloat(bs)) {
+			return;
+		}
+		int n = bs.size;
+		double[] mass = bs.mass;
+		if(bs.tracers > 0) {
+			int ns = pack(bs);
+			if(bs.isParallel()) {
+				bs.forEachRange((from, to) -> applyRange(mass, from, to, sx, sy, sm, ns));
+			}
+			else {
+				applySymmetric(sx, sy, sm, sax, say, ns);
+				for(int b = 0; b < ns; b++) {
+					ax[bs.sources[b]] = sax[b];
+					ay[bs.sources[b]] = say[b];
+				}
+				for(int i = 0; i < n; i++) {
+					if(bs.tracer[i]) {
+						applyRange(mass, i, i + 1, sx, sy, sm, ns);
+					}
+				}
+			}
+		}
+		else if(bs.isParallel()) {
+			bs.forEachRange((from, to) -> applyRange(mass, from, to, x, y, m, n));
+		}
+		else {
+			applySymmetric(x, y, m, ax, ay, n);
+		}
+		addForces(bs, 0, n);
+	}
+
+	@Override
+	public void apply(BodyStore bs, int[] active, int count) {
+		for(int k = 0; k < count; k++) {
+			bs.fx[active[k]] = 0;
+			bs.fy[active[k]] = 0;
+		}
+		if(!toFloat(bs)) {
+			return;
+		}
+		int ns = bs.tracers > 0 ? pack(bs) : 0;
+		for(int k = 0; k < count; k++) {
+			int i = active[k];
+			if(bs.tracers > 0) {
+				applyRange(bs.mass, i, i + 1, sx, sy, sm, ns);
+			}
+			else {
+				applyRange(bs.mass, i, i + 1, x, y, m, bs.size);
+			}
+			addForces(bs, i, i + 1);
+		}
+	}
+
+	// copia las fuentes de x, y y m a sx, sy y sm; devuelve cuantas son
+	private int pack(BodyStore bs) {
+		int ns = bs.sourceCount;
+		if(sx.length < ns) {
+			int cap = Math.max(ns, 2 * sx.length);
+			sx = new float[cap];
+			sy = new float[cap];
+			sm = new float[cap];
+			sax = new double[cap];
+			say = new double[cap];
+		}
+		for(int b = 0; b < ns; b++) {
+			int j = bs.sources[b];
+			sx[b] = x[j];
+			sy[b] = y[j];
+			sm[b] = m[j];
+			sax[b] = 0;
+			say[b] = 0;
+		}
+		return ns;
+	}
+
+	// pasa el almacen a los arrays en float; false si no hay masa
+	private boolean toFloat(BodyStore bs) {
+		int n = bs.size;
+		double[] px = bs.px, py = bs.py, mass = bs.mass;
+		if(x.length < n) {
+			int cap = Math.max(n, 2 * x.length);
+			x = new float[cap];
+			y = new float[cap];
+			m = new float[cap];
+			ax = new double[cap];
+			ay = new double[cap];
+		}
+
+		double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		double maxM = 0;
+		for(int i = 0; i < n; i++) {
+			minX = Math.min(minX, px[i]);
+			maxX = Math.max(maxX, px[i]);
+			minY = Math.min(minY, py[i]);
+			maxY = Math.max(maxY, py[i]);
+			if(!bs.tracer[i]) {
+				maxM = Math.max(maxM, mass[i]);
+			}
+		}
+		if(maxM == 0) {
+			return false;
+		}
+		double ox = (minX + maxX) / 2, oy = (minY + maxY) / 2;
+		double l = Math.max(maxX - minX, maxY - minY) / 2;
+		if(l == 0) {
+			l = 1;
+		}
+
+		for(int i = 0; i < n; i++) {
+			x[i] = (float) ((px[i] - ox) / l);
+			y[i] = (float) ((py[i] - oy) / l);
+			m[i] = bs.tracer[i] ? 0 : (float) (mass[i] / maxM);
+			ax[i] = 0;
+			ay[i] = 0;
+		}
+		scale = G * maxM / (l * l);
+		return true;
+	}
+
+	// cada pareja de los n primeros de los arrays una vez, como en nlug
+	private void applySymmetric(float[] x, float[] y, float[] m, double[] ax, double[] ay, int n) {
+		for(int i = 0; i < n; i++) {
+			if(m[i] != 0) {
+				float xi = x[i], yi = y[i], mi = m[i];
+				double axi = 0, ayi = 0;
+				for(int j = i + 1; j < n; j++) {
+					if(m[j] != 0) {
+						float dx = x[j] - xi;
+						float dy = y[j] - yi;
+						float w = inverseCube(dx*dx + dy*dy);
+
+						axi += m[j] * w * dx;
+						ayi += m[j] * w * dy;
+						ax[j] -= mi * w * dx;
+						ay[j] -= mi * w * dy;
+					}
+				}
+				ax[i] += axi;
+				ay[i] += ayi;
+			}
+		}
+	}
+
+	// sumas de los cuerpos [from, to) con masa, recorriendo los n primeros de
+	// ox, oy y om (todos los cuerpos o solo las fuentes); la pareja de un
+	// cuerpo consigo mismo no suma nada porque d2 es 0
+	private void applyRange(double[] mass, int from, int to, float[] ox, float[] oy, float[] om, int n) {
+		for(int i = from; i < to; i++) {
+			if(mass[i] != 0) {
+				float xi = x[i], yi = y[i];
+				double axi = 0, ayi = 0;
+				for(int j = 0; j < n; j++) {
+					if(om[j] != 0) {
+						float dx = ox[j] - xi;
+						float dy = oy[j] - yi;
+						float w = inverseCube(dx*dx + dy*dy);
+
+						axi += om[j] * w * dx;
+						ayi += om[j] * w * dy;
+					}
+				}
+				ax[i] = axi;
+				ay[i] = ayi;
+			}
+		}
+	}
+
+	private void addForces(BodyStore bs, int from, int to) {
+		for(int i = from; i < to; i++) {
+			bs.fx[i] += scale * bs.mass[i] * ax[i];
+			bs.fy[i] += scale * bs.mass[i] * ay[i];
+		}
+	}
+
+	// 1/d^3 (0 si d es 0), con d^2 de al menos D2_MIN
+	private static float inverseCube(float d2) {
+		if(d2 == 0.0f) {
+			return 0.0f;
+		}
+		d2 = Math.max(d2, D2_MIN);
+		float d = (float) Math.sqrt(d2);
+
+		return 1.0f / (d2 * d);
+	}
+
+	public String toString()
+	{
+		return "Newton's Universal Gravitation (float pairs, double sums) with G=" + this.G;
+	}
+}
@@ -1,10 +1,8 @@
 package simulator.model;
 
-import java.util.List;
-
 import simulator.misc.Vector2D;
 
-public class MovingTowardsFixedPoint implements ForceLaws {
+public class MovingTowardsFixedPoint implements BodyForceLaws {
 
 	protected double g;
 	protected Vector2D c;
@@ -15,18 +13,39 @@ public class MovingTowardsFixedPoint implements ForceLaws {
 	}
 	
 	@Override
-	public void apply(List<Body> bs) {
-		for(Body bi:bs) {
-			Vector2D f;
+	public void apply(BodyStore bs) {
+		if(bs.isParallel()) {
+			bs.forEachRange((from, to) -> applyRange(bs, from, to));
+		}
+		else {
+			applyRange(bs, 0, bs.size);
+		}
+	}
+	
+	@Override
+	public void applyRange(BodyStore bs, int from, int to) {
+		double cx = c.getX();
+		double cy = c.getY();
+		
+		for(int i = from; i < to; i++) {
+			double dx, dy, k;
 			
-			if(c.getX() == 0 && c.getY() == 0) {
-				f = bi.getPosition().direction().scale((-g)*bi.getMass());
+			if(cx == 0 && cy == 0) {
+				dx = bs.px[i];
+				dy = bs.py[i];
+				k = (-g)*bs.mass[i];
 			}
 			else {
-				f = c.minus(bi.getPosition()).direction().scale(bi.getMass()*(g)); 
+				dx = cx - bs.px[i];
+				dy = cy - bs.py[i];
+				k = bs.mass[i]*(g);
 			}
 			
-			bi.addForce(f);
+			double d = Math.sqrt(dx*dx + dy*dy);
+			if(d > 0.0) {
+				bs.fx[i] += dx * (1.0/d) * k;
+				bs.fy[i] += dy * (1.0/d) * k;
+			}
 		}
 	}
 	
@@ -1,9 +1,5 @@
 package simulator.model;
 
-import java.util.List;
-
-import simulator.misc.Vector2D;
-
 public class NewtonUniversalGravitation implements ForceLaws {
 
 	private double G;
@@ -12,33 +8,200 @@ public class NewtonUniversalGravitation implements ForceLaws {
 		G = g;
 	}
 	
+	/*
+	 * Cada pareja {i, j} se calcula una sola vez y se aplica con signo opuesto
+	 * a los dos cuerpos (tercera ley de Newton). En modo paralelo cada tarea
+	 * calcula las fuerzas de sus cuerpos recorriendo todos los demas; como
+	 * fji = -fij exactamente y en los dos casos las contribuciones se suman en
+	 * orden creciente de j, ambos caminos dan el mismo resultado bit a bit.
+	 */
 	@Override
-	public void apply(List<Body> bs) {
-		for(Body bi:bs) {
-			if(bi.getMass() != 0) {
-				for(Body bj: bs) {
-					if(!(bi.equals(bj))){
-						double fij = forceIJ(bi,bj);
-						Vector2D d = bj.getPosition().minus(bi.getPosition());
-						Vector2D Fij = d.direction().scale(fij);
+	public void apply(BodyStore bs) {
+		if(bs.tracers > 0) {
+			applyWithTracers(bs);
+		}
+		else if(bs.isParallel()) {
+			bs.forEachRange((from, to) -> applyRange(bs, from, to));
+		}
+		else {
+			applySymmetric(bs);
+		}
+	}
+	
+	/*
+	 * Con trazadores solo los cuerpos de bs.sources atraen: las parejas entre
+	 * ellos se calculan como siempre y cada trazador recorre solo las fuentes,
+	 * asi que con S fuentes y N cuerpos el coste es O(S*N).
+	 */
+	private void applyWithTracers(BodyStore bs) {
+		if(bs.isParallel()) {
+			bs.forEachRange((from, to) -> {
+				for(int i = from; i < to; i++) {
+					forceFromSources(bs, i);
+				}
+			});
+		}
+		else {
+			applySourcesSymmetric(bs);
+			for(int i = 0; i < bs.size; i++) {
+				if(bs.tracer[i]) {
+					forceFromSources(bs, i);
+				}
+			}
+		}
+	}
+	
+	// applySymmetric solo con las fuentes
+	private void applySourcesSymmetric(BodyStore bs) {
+		int ns = bs.sourceCount;
+		int[] src = bs.sources;
+		double[] px = bs.px, py = bs.py, m = bs.mass, fx = bs.fx, fy = bs.fy;
+		
+		for(int a = 0; a < ns; a++) {
+			int i = src[a];
+			if(m[i] != 0) {
+				double xi = px[i], yi = py[i], mi = m[i];
+				double fxi = fx[i], fyi = fy[i];
+				for(int b = a + 1; b < ns; b++) {
+					int j = src[b];
+					if(m[j] != 0) {
+						double dx = px[j] - xi;
+						double dy = py[j] - yi;
+						double w = forceIJ(mi, m[j], dx*dx + dy*dy);
+						
+						fxi += w * dx;
+						fyi += w * dy;
+						fx[j] -= w * dx;
+						fy[j] -= w * dy;
+					}
+				}
+				fx[i] = fxi;
+				fy[i] = fyi;
+			}
+		}
+	}
+	
+	// suma a la fuerza de i la de todas las fuentes
+	private void forceFromSources(BodyStore bs, int i) {
+		int ns = bs.sourceCount;
+		int[] src = bs.sources;
+		double[] px = bs.px, py = bs.py, m = bs.mass;
+		
+		if(m[i] != 0) {
+			double fx = bs.fx[i], fy = bs.fy[i];
+			for(int b = 0; b < ns; b++) {
+				int j = src[b];
+				if(i != j && m[j] != 0){
+					double dx = px[j] - px[i];
+					double dy = py[j] - py[i];
+					double w = forceIJ(m[i], m[j], dx*dx + dy*dy);
+					
+					fx += w * dx;
+					fy += w * dy;
+				}
+			}
+			bs.fx[i] = fx;
+			bs.fy[i] = fy;
+		}
+	}
+	
+	private void applySymmetric(BodyStore bs) {
+		int n = bs.size;
+		double[] px = bs.px, py = bs.py, m = bs.mass, fx = bs.fx, fy = bs.fy;
+		
+		for(int i = 0; i < n; i++) {
+			if(m[i] != 0) {
+				double xi = px[i], yi = py[i], mi = m[i];
+				double fxi = fx[i], fyi = fy[i];
+				for(int j = i + 1; j < n; j++) {
+					if(m[j] != 0) {
+						double dx = px[j] - xi;
+						double dy = py[j] - yi;
+						double w = forceIJ(mi, m[j], dx*dx + dy*dy);
 						
-						bi.addForce(Fij);
+						fxi += w * dx;
+						fyi += w * dy;
+						fx[j] -= w * dx;
+						fy[j] -= w * dy;
 					}
 				}
+				fx[i] = fxi;
+				fy[i] = fyi;
 			}
 		}
 	}
 	
-	private double forceIJ(Body bi, Body bj) {
-		double fij;
-		Vector2D pos;
+	// solo los cuerpos activos, recorriendo todos los demas
+	@Override
+	public void apply(BodyStore bs, int[] active, int count) {
+		int n = bs.size;
+		if(count == n) {
+			bs.resetForces();
+			apply(bs);
+			return;
+		}
+		if(bs.tracers > 0) {
+			for(int k = 0; k < count; k++) {
+				bs.fx[active[k]] = 0;
+				bs.fy[active[k]] = 0;
+				forceFromSources(bs, active[k]);
+			}
+			return;
+		}
+		double[] px = bs.px, py = bs.py, m = bs.mass;
 		
-		pos = bj.getPosition().minus(bi.getPosition());
+		for(int k = 0; k < count; k++) {
+			int i = active[k];
+			double fx = 0, fy = 0;
+			if(m[i] != 0) {
+				for(int j = 0; j < n; j++) {
+					if(i != j && m[j] != 0){
+						double dx = px[j] - px[i];
+						double dy = py[j] - py[i];
+						double w = forceIJ(m[i], m[j], dx*dx + dy*dy);
+						
+						fx += w * dx;
+						fy += w * dy;
+					}
+				}
+			}
+			bs.fx[i] = fx;
+			bs.fy[i] = fy;
+		}
+	}
+	
+	// fuerzas sobre los cuerpos [from, to), sumando siempre en el orden de j
+	private void applyRange(BodyStore bs, int from, int to) {
+		int n = bs.size;
+		double[] px = bs.px, py = bs.py, m = bs.mass;
 		
-		fij = G * (bi.getMass()*bj.getMass());
-		fij/= Math.pow(pos.magnitude(), 2);
+		for(int i = from; i < to; i++) {
+			if(m[i] != 0) {
+				double fx = bs.fx[i], fy = bs.fy[i];
+				for(int j = 0; j < n; j++) {
+					if(i != j && m[j] != 0){
+						double dx = px[j] - px[i];
+						double dy = py[j] - py[i];
+						double w = forceIJ(m[i], m[j], dx*dx + dy*dy);
+						
+						fx += w * dx;
+						fy += w * dy;
+					}
+				}
+				bs.fx[i] = fx;
+				bs.fy[i] = fy;
+			}
+		}
+	}
+	
+	// G*mi*mj/d^3, el factor por el que se multiplica el vector entre los cuerpos
+	private double forceIJ(double mi, double mj, double d2) {
+		if(d2 == 0.0) {
+			return 0.0;
+		}
+		double inv = 1.0 / Math.sqrt(d2);
 		
-		return fij;
+		return G * (mi*mj) * (inv*inv*inv);
 	}
 	
 	public String toString()
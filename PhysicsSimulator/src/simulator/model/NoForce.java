@@ -1,11 +1,14 @@
 package simulator.model;
 
-import java.util.List;
-
-public class NoForce implements ForceLaws {
+public class NoForce implements BodyForceLaws {
 
 	@Override
-	public void apply(List<Body> bs) {
+	public void apply(BodyStore bs) {
+		
+	}
+	
+	@Override
+	public void applyRange(BodyStore bs, int from, int to) {
 		
 	}
 	
@@ -0,0 +1,251 @@
+package simulator.model;
+
+import simulator.misc.FFT;
+import simulator.misc.Vector2D;
+
+/*
+ * Ley de gravitacion universal con el metodo particle-mesh (PM).
+ *
+ * En cada paso:
+ *   1. la masa se reparte en una malla de grid x grid celdas con pesos
+ *      cloud-in-cell (CIC),
+ *   2. el potencial se obtiene con una convolucion por FFT,
+ *   3. su gradiente (diferencias centradas) se interpola a los cuerpos con
+ *      los mismos pesos CIC.
+ *
+ * La fuerza del simulador (G*mi*mj*d/|d|^3) deriva del potencial 1/r, no de
+ * la ecuacion de Poisson en 2D (cuya solucion es logaritmica), asi que el
+ * "Poisson" se resuelve convolucionando la densidad con 1/r. La malla se
+ * rellena con ceros hasta 2*grid por lado para que la convolucion no sea
+ * periodica (condiciones de contorno aisladas).
+ *
+ * El dominio es el rectangulo [min, max]. Si no se indica, en cada paso se
+ * usa el cuadrado mas pequeno que contiene a todos los cuerpos. Los cuerpos
+ * que quedan fuera de un dominio fijo, o en su primera o ultima fila o
+ * columna de celdas, se tratan como si estuvieran a una celda del borde.
+ *
+ * Las fuerzas a distancias de pocas celdas salen suavizadas, asi que el
+ * metodo sirve para distribuciones con muchos cuerpos en las que importa la
+ * fuerza a gran escala. Error relativo medio de la fuerza entre dos cuerpos
+ * segun su distancia: 7% a 4 celdas, 1.6% a 8, 0.4% a 16 y 0.1% a 32.
+ */
+public class ParticleMeshGravitation implements ForceLaws {
+
+	private static final double SELF_CELL = 4 * Math.log(1 + Math.sqrt(2)); // media de 1/r en una celda de lado 1
+
+	protected double G;
+	protected int grid;
+	protected Vector2D min; // null para ajustar el dominio en cada paso
+	protected Vector2D max;
+
+	private int size; // 2*grid
+	private FFT fft;
+	private double[] re;
+	private double[] im;
+	private double[] green; // transformada de 1/r, ya dividida entre size^2
+	private double greenRatio; // hy/hx con el que se calculo green
+	private double[] ex; // gradiente del potencial en la malla
+	private double[] ey;
+
+	public ParticleMeshGravitation(double g, int grid, Vector2D min, Vector2D max) {
+		if(grid < 4 || (grid & (grid - 1)) != 0) {
+			throw new IllegalArgumentException("El tamano de la malla tiene que ser una potencia de 2");
+		}
+		if((min == null) != (max == null)
+				|| (min != null && (max.getX() <= min.getX() || max.getY() <= min.getY()))) {
+			throw new IllegalArgumentException("Dominio no valido");
+		}
+		this.G = g;
+		this.grid = grid;
+		this.min = min;
+		this.max = max;
+
+		this.size = 2 * grid;
+		this.fft = new FFT(size);
+		this.re = new double[size * size];
+		this.im = new double[size * size];
+		this.green = new double[size * size];
+		this.greenRatio = 0;
+		this.ex = new double[grid * grid];
+		this.ey = new double[grid * grid];
+	}
+
+	@Override
+	public void apply(BodyStore bs) {
+		int n = bs.size;
+		if(n == 0) {
+			return;
+		}
+		double[] px = bs.px, py = bs.py, m = bs.mass;
+
+		// dominio: el centro de la celda (0,0) esta en (x0, y0)
+		double x0, y0, hx, hy;
+		if(min != null) {
+			hx = (max.getX() - min.getX()) / grid;
+			hy = (max.getY() - min.getY()) / grid;
+			x0 = min.getX() + hx / 2;
+			y0 = min.getY() + hy / 2;
+		}
+		else {
+			double minX = px[0], maxX = px[0], minY = py[0], maxY = py[0];
+			for(int i = 1; i < n; i++) {
+				minX = Math.min(minX, px[i]);
+				maxX = Math.max(maxX, px[i]);
+				minY = Math.min(minY, py[i]);
+				maxY = Math.max(maxY, py[i]);
+			}
+			// los centros de las celdas 1 y grid-2 quedan en los extremos
+			hx = Math.max(maxX - minX, maxY - minY) / (grid - 3) * (1 + 1e-9);
+			if(hx == 0 || Double.isInfinite(1 / hx)) {
+				hx = 1;
+			}
+			hy = hx;
+			x0 = (minX + maxX) / 2 - hx * (grid - 1) / 2;
+			y0 = (minY + maxY) / 2 - hy * (grid - 1) / 2;
+		}
+
+		if(hy / hx != greenRatio) {
+			computeGreen(hy / hx);
+		}
+
+		deposit(n, px, py, m, bs.tracer, x0, y0, 1 / hx, 1 / hy);
+		convolve();
+		gradient(1 / hx, 1 / hy);
+		interpolate(bs, x0, y0, 1 / hx, 1 / hy);
+	}
+
+	// transformada de 1/r en la malla extendida, con celdas de lado 1 x ratio
+	// (el factor 1/hx se aplica al calcular el gradiente)
+	private void computeGreen(double ratio) {
+		for(int j = 0; j < size; j++) {
+			int dj = Math.min(j, size - j);
+			for(int i = 0; i < size; i++) {
+				int di = Math.min(i, size - i);
+				double r = Math.sqrt(di*di + (dj*ratio)*(dj*ratio));
+				re[j*size + i] = r == 0 ? SELF_CELL / Math.sqrt(ratio) : 1 / r;
+				im[j*size + i] = 0;
+			}
+		}
+		fft2(false, size);
+		// 1/r es real y par, asi que su transformada es real
+		double norm = 1.0 / ((double) size * size);
+		for(int k = 0; k < size*size; k++) {
+			green[k] = re[k] * norm;
+		}
+		greenRatio = ratio;
+	}
+
+	// los trazadores no dejan masa en la malla
+	private void deposit(int n, double[] px, double[] py, double[] m, boolean[] tracer, double x0, double y0, double ihx, double ihy) {
+		for(int k = 0; k < size*size; k++) {
+			re[k] = 0;
+			im[k] = 0;
+		}
+		for(int b = 0; b < n; b++) {
+			if(m[b] != 0 && !tracer[b]) {
+				double gx = clamp((px[b] - x0) * ihx);
+				double gy = clamp((py[b] - y0) * ihy);
+				int i = Math.min((int) gx, grid - 2), j = Math.min((int) gy, grid - 2);
+				double wx = gx - i, wy = gy - j;
+				int k = j*size + i;
+				re[k] += m[b] * (1 - wx) * (1 - wy);
+				re[k + 1] += m[b] * wx * (1 - wy);
+				re[k + size] += m[b] * (1 - wx) * wy;
+				re[k + size + 1] += m[b] * wx * wy;
+			}
+		}
+	}
+
+	// se deja libre la primera y la ultima celda: con diferencias laterales en
+	// el borde un cuerpo notaria la fuerza de su propia masa
+	private double clamp(double g) {
+		return Math.max(1, Math.min(grid - 2, g));
+	}
+
+	// potencial = densidad * (1/r); solo las filas 0..grid-1 tienen masa y
+	// solo hace falta el resultado en ellas
+	private void convolve() {
+		fft2(false, grid);
+		for(int k = 0; k < size*size; k++) {
+			re[k] *= green[k];
+			im[k] *= green[k];
+		}
+		fft2(true, grid);
+	}
+
+	// FFT por filas y por columnas; rows es el numero de filas que no son
+	// cero (directa) o que interesan (inversa)
+	private void fft2(boolean inverse, int rows) {
+		if(!inverse) {
+			for(int j = 0; j < rows; j++) {
+				fft.transform(re, im, j*size, 1, false);
+			}
+			for(int i = 0; i < size; i++) {
+				fft.transform(re, im, i, size, false);
+			}
+		}
+		else {
+			for(int i = 0; i < size; i++) {
+				fft.transform(re, im, i, size, true);
+			}
+			for(int j = 0; j < rows; j++) {
+				fft.transform(re, im, j*size, 1, true);
+			}
+		}
+	}
+
+	// gradiente del potencial (en re) por diferencias centradas, laterales en el borde
+	private void gradient(double ihx, double ihy) {
+		// el potencial de green esta calculado con hx = 1: phi real = re / hx
+		double sx = ihx * ihx, sy = ihx * ihy;
+		for(int j = 0; j < grid; j++) {
+			for(int i = 0; i < grid; i++) {
+				int k = j*size + i;
+				double dx, dy;
+				if(i == 0) {
+					dx = re[k + 1] - re[k];
+				}
+				else if(i == grid - 1) {
+					dx = re[k] - re[k - 1];
+				}
+				else {
+					dx = (re[k + 1] - re[k - 1]) / 2;
+				}
+				if(j == 0) {
+					dy = re[k + size] - re[k];
+				}
+				else if(j == grid - 1) {
+					dy = re[k] - re[k - size];
+				}
+				else {
+					dy = (re[k + size] - re[k - size]) / 2;
+				}
+				ex[j*grid + i] = dx * sx;
+				ey[j*grid + i] = dy * sy;
+			}
+		}
+	}
+
+	private void interpolate(BodyStore bs, double x0, double y0, double ihx, double ihy) {
+		for(int b = 0; b < bs.size; b++) {
+			double mb = bs.mass[b];
+			if(mb != 0) {
+				double gx = clamp((bs.px[b] - x0) * ihx);
+				double gy = clamp((bs.py[b] - y0) * ihy);
+				int i = Math.min((int) gx, grid - 2), j = Math.min((int) gy, grid - 2);
+				double wx = gx - i, wy = gy - j;
+				int k = j*grid + i;
+				double w00 = (1 - wx) * (1 - wy), w10 = wx * (1 - wy), w01 = (1 - wx) * wy, w11 = wx * wy;
+				double fx = w00*ex[k] + w10*ex[k + 1] + w01*ex[k + grid] + w11*ex[k + grid + 1];
+				double fy = w00*ey[k] + w10*ey[k + 1] + w01*ey[k + grid] + w11*ey[k + grid + 1];
+				bs.fx[b] += G * mb * fx;
+				bs.fy[b] += G * mb * fy;
+			}
+		}
+	}
+
+	public String toString()
+	{
+		return "Newton's Universal Gravitation (particle-mesh, " + this.grid + "x" + this.grid + ") with G=" + this.G;
+	}
+}
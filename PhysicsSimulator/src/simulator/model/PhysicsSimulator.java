@@ -1,8 +1,17 @@
 package simulator.model;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -11,10 +20,18 @@ public class PhysicsSimulator {
 	
 	private double _time;  // tiempo actual
 	private ForceLaws _forceLaws;  // leyes de la fuerza a aplicar
-	private List<Body> _bodies;  // cuerpos de la simulacion
+	private List<Body> _bodies;  // cuerpos de la simulacion, en el orden en que se anadieron
 	private List<Body> _bodiesUnmodifiable;
+	private int _removed;  // cuerpos quitados que aun estan en _bodies
+	private Map<String, Body> _byId;  // cuerpos de la simulacion por id
+	private BodyStore _store;  // datos de los cuerpos; el handle de un cuerpo es su posicion aqui
 	private double _dt;  // tiempo delta
 	private List<SimulatorObserver> _observers;
+	private Executor _observerExecutor;  // null si los observadores se avisan en el hilo del simulador
+	private Map<SimulatorObserver, AsyncObserver> _async;  // colas de los observadores asincronos
+	private Integrator _integrator;
+	private AdaptiveTimeStep _adaptive;  // null si el dt es fijo
+	private EscapeCriterion _escape;  // null si no se quita ningun cuerpo
 	
 	public PhysicsSimulator(ForceLaws FL, double tRealporPaso)
 	{
@@ -36,34 +53,45 @@ public class PhysicsSimulator {
 			throw new IllegalArgumentException("Tiempo no valido");
 		}
 		this._bodies = new ArrayList<>();
+		this._byId = new HashMap<>();
+		this._store = new BodyStore(16);
 		this._observers = new ArrayList<>();
-		_bodiesUnmodifiable = Collections.unmodifiableList(_bodies);
+		this._async = new LinkedHashMap<>();
+		_bodiesUnmodifiable = new BodiesView();
 		this._time = 0.0;
+		this._integrator = new EulerIntegrator();
 	}
 	
 	public void advance(){
-		for(Body b: this._bodies)
-		{
-			b.resetForce();
-		}
-		
-		this._forceLaws.apply(_bodies);
+		this._integrator.step(_store, _forceLaws, _dt);
+		_time += _dt;
 		
-		for(Body b: this._bodies)
-		{
-			b.move(_dt);
+		if(this._escape != null) {
+			cull();
+		}
+		if(this._adaptive != null) {
+			double dt = this._adaptive.next(_store, _dt);
+			if(dt != this._dt) {
+				this._dt = dt;
+				for(int i = 0; i < this._observers.size(); i++) {
+					this._observers.get(i).onDeltaTimeChanged(_dt);
+				}
+			}
 		}
-		_time += _dt;
 		
-		for(SimulatorObserver s:this._observers) {
-			s.onAdvance(_bodiesUnmodifiable, _time);
+		// con indice para no crear un iterador en cada paso
+		for(int i = 0; i < this._observers.size(); i++) {
+			this._observers.get(i).onAdvance(_bodiesUnmodifiable, _time);
 		}
 	}
 	
 	public void addBody(Body b){
-		if(!_bodies.contains(b))
+		if(!_byId.containsKey(b.getId()))
 		{
-			_bodies.add(b);
+			register(b);
+			if(this._adaptive != null) {
+				this._adaptive.reset();
+			}
 			
 			for(SimulatorObserver s:this._observers) {
 				s.onBodyAdded(_bodiesUnmodifiable, b);
@@ -75,10 +103,155 @@ public class PhysicsSimulator {
 		}
 	}
 	
+	/*
+	 * Anade varios cuerpos de una vez, en el orden de la coleccion, y avisa a
+	 * los observadores con un unico evento. Si alguno esta repetido no se
+	 * anade ninguno.
+	 */
+	public void addBodies(Collection<Body> bodies) {
+		Set<String> nuevos = new HashSet<>();
+		for(Body b: bodies) {
+			if(_byId.containsKey(b.getId()) || !nuevos.add(b.getId())) {
+				throw new IllegalArgumentException("Ya existe el cuerpo " + b.getId());
+			}
+		}
+		
+		compact();
+		int from = this._bodies.size();
+		for(Body b: bodies) {
+			register(b);
+		}
+		if(this._adaptive != null) {
+			this._adaptive.reset();
+		}
+		
+		List<Body> added = this._bodiesUnmodifiable.subList(from, this._bodies.size());
+		for(SimulatorObserver s:this._observers) {
+			s.onBodiesAdded(_bodiesUnmodifiable, added);
+		}
+	}
+	
+	private void register(Body b) {
+		// un cuerpo quitado y vuelto a anadir no puede seguir en su posicion antigua
+		compact();
+		b.attach(_store);
+		_byId.put(b.getId(), b);
+		_bodies.add(b);
+	}
+	
+	// posicion del cuerpo en el almacen, -1 si no esta en la simulacion; cambia
+	// cuando se quitan otros cuerpos
+	public int getHandle(Body b) {
+		Body r = this._byId.get(b.getId());
+		return r != null && r.equals(b) ? r.index : -1;
+	}
+	
+	// handle del cuerpo k en el orden de getState() y de los observadores (el
+	// orden en que se anadieron), que deja de ser el del almacen al quitar cuerpos
+	public int getHandleAt(int k) {
+		compact();
+		return this._bodies.get(k).index;
+	}
+	
+	public Body removeBody(String id) {
+		Body b = this._byId.get(id);
+		if(b == null) {
+			throw new IllegalArgumentException("No existe el cuerpo " + id);
+		}
+		return removeBody(b.index);
+	}
+	
+	/*
+	 * Quita el cuerpo de ese handle en O(1): en el almacen su sitio lo ocupa
+	 * el ultimo cuerpo, y de la lista de cuerpos se quita la proxima vez que
+	 * alguien la lea. El cuerpo se queda con sus datos.
+	 */
+	public Body removeBody(int handle) {
+		if(handle < 0 || handle >= this._store.size) {
+			throw new IllegalArgumentException("No existe el cuerpo");
+		}
+		Body b = unregister(handle);
+		if(this._adaptive != null) {
+			this._adaptive.reset();
+		}
+		
+		for(SimulatorObserver s:this._observers) {
+			s.onBodyRemoved(_bodiesUnmodifiable, b);
+		}
+		return b;
+	}
+	
+	private Body unregister(int handle) {
+		Body b = this._store.bodies[handle];
+		b.detach();
+		this._store.remove(handle);
+		this._byId.remove(b.getId());
+		this._removed++;
+		return b;
+	}
+	
+	// quita los cuerpos que cumplen el criterio de escape y avisa a los
+	// observadores con un unico evento
+	private void cull() {
+		List<Body> quitados = null;
+		// hacia atras: el cuerpo que ocupa el sitio de uno quitado ya esta mirado
+		for(int i = this._store.size - 1; i >= 0; i--) {
+			if(this._escape.escaped(this._store, i)) {
+				if(quitados == null) {
+					quitados = new ArrayList<>();
+				}
+				quitados.add(unregister(i));
+			}
+		}
+		
+		if(quitados != null) {
+			if(this._adaptive != null) {
+				this._adaptive.reset();
+			}
+			List<Body> removed = Collections.unmodifiableList(quitados);
+			for(SimulatorObserver s:this._observers) {
+				s.onBodiesRemoved(_bodiesUnmodifiable, removed);
+			}
+		}
+	}
+	
+	// quita de _bodies los cuerpos que ya no estan en el almacen
+	private void compact() {
+		if(this._removed > 0) {
+			this._bodies.removeIf(b -> b.store != this._store);
+			this._removed = 0;
+		}
+	}
+	
+	// lista de cuerpos que se da a los observadores: no se puede modificar y
+	// compacta _bodies antes de leerla
+	private class BodiesView extends AbstractList<Body> implements RandomAccess {
+		@Override
+		public Body get(int i) {
+			compact();
+			return _bodies.get(i);
+		}
+		
+		@Override
+		public int size() {
+			compact();
+			return _bodies.size();
+		}
+	}
+	
 	public void reset() {
 		
+		compact();
+		for(Body b: this._bodies) {
+			b.detach();
+		}
 		this._bodies.clear();
+		this._byId.clear();
+		this._store.clear();
 		this._time = 0.0;
+		if(this._adaptive != null) {
+			this._adaptive.reset();
+		}
 		
 		for(SimulatorObserver s: this._observers) {
 			s.onReset(this._bodiesUnmodifiable, this._time, this._dt, this._forceLaws.toString());
@@ -97,29 +270,104 @@ public class PhysicsSimulator {
 		}
 	}
 	
+	// numero de hilos usados para calcular las fuerzas y mover los cuerpos
+	public void setThreads(int threads) {
+		if(threads < 0) {
+			throw new IllegalArgumentException("Numero de hilos no valido");
+		}
+		
+		this._store.setThreads(threads);
+	}
+	
 	public void setForceLawsLaws(ForceLaws forceLaws) {
 		if(forceLaws.equals(null)) {
 			throw new IllegalArgumentException("Leyes de fuerza invalidas");
 		}
 		
 		this._forceLaws = forceLaws;
+		this._store.forcesValid = false;
 		
 		for(SimulatorObserver s:this._observers) {
 			s.onForceLawsChanged(this._forceLaws.toString());
 		}
 	}
 	
+	public void setIntegrator(Integrator integrator) {
+		if(integrator == null) {
+			throw new IllegalArgumentException("Integrador invalido");
+		}
+		
+		this._integrator = integrator;
+		this._store.forcesValid = false;
+	}
+	
+	// con e != null despues de cada paso se quitan los cuerpos que cumplen e
+	public void setEscapeCriterion(EscapeCriterion e) {
+		this._escape = e;
+	}
+	
+	// con a != null el dt de cada paso lo elige a, empezando por el actual
+	public void setAdaptiveTimeStep(AdaptiveTimeStep a) {
+		this._adaptive = a;
+		
+		if(a != null) {
+			a.reset();
+			setDeltaTime(a.clamp(this._dt));
+		}
+	}
+	
+	public double getDeltaTime() {
+		return this._dt;
+	}
+	
 	public void addObserver(SimulatorObserver o) {
-		if(!this._observers.contains(o)) {
+		if(!this._observers.contains(o) && !this._async.containsKey(o)) {
+			if(this._observerExecutor != null) {
+				AsyncObserver a = new AsyncObserver(o, this._observerExecutor);
+				this._async.put(o, a);
+				o = a;
+			}
 			this._observers.add(o);
 			o.onRegister(this._bodiesUnmodifiable, this._time, this._dt, this._forceLaws.toString());
 		}
 	}
 	
+	/*
+	 * Con e != null los observadores que se anadan a partir de ahora reciben
+	 * los eventos en su propia cola y se los entrega e (ver AsyncObserver): el
+	 * simulador no espera por ellos y un observador lento se salta estados
+	 * intermedios en lugar de frenar la simulacion.
+	 */
+	public void setObserverExecutor(Executor e) {
+		this._observerExecutor = e;
+	}
+	
+	public boolean hasAsyncObservers() {
+		return !this._async.isEmpty();
+	}
+	
+	// onAdvance descartados de cada observador asincrono, en el orden en que se anadieron
+	public Map<SimulatorObserver, Long> getDroppedEvents() {
+		Map<SimulatorObserver, Long> m = new LinkedHashMap<>();
+		for(Map.Entry<SimulatorObserver, AsyncObserver> e: this._async.entrySet()) {
+			m.put(e.getKey(), e.getValue().getDropped());
+		}
+		return m;
+	}
+	
+	public double getTime() {
+		return this._time;
+	}
+	
+	public BodyStore getBodyStore() {
+		return this._store;
+	}
+	
 	public JSONObject getState() {
 		JSONObject j = new JSONObject();
 		JSONArray ja = new JSONArray();
 		
+		compact();
 		for(Body b:this._bodies) {
 			ja.put(b.getState());
 		}
@@ -0,0 +1,199 @@
+package simulator.model;
+
+/*
+ * Base de las leyes de fuerza que se anulan a partir de una distancia de
+ * corte. Cada cuerpo tiene una lista de vecinos (listas de Verlet) con los
+ * cuerpos a distancia menor que cutoff + skin, y en cada paso solo se
+ * recorren esas parejas. Las listas se reconstruyen cuando algun cuerpo se ha
+ * movido mas de skin/2 desde la ultima vez, porque hasta entonces ninguna
+ * pareja fuera de la lista puede haberse acercado a menos de cutoff.
+ *
+ * Para construirlas los cuerpos se reparten en una malla de celdas de lado al
+ * menos cutoff + skin y solo se miran las 9 celdas de alrededor, asi que con
+ * densidad acotada el coste por paso es O(n). Las listas son de medias
+ * parejas (j > i) en formato CSR: los vecinos de i son
+ * nbr[nbrStart[i]] .. nbr[nbrStart[i+1]-1].
+ */
+public abstract class ShortRangeForceLaws implements ForceLaws {
+
+	protected double cutoff;
+	protected double skin;
+
+	private BodyStore builtFor; // almacen y numero de cuerpos de las listas actuales
+	private int builtSize;
+	private double[] refX; // posiciones al construir las listas
+	private double[] refY;
+
+	private int[] nbrStart;
+	private int[] nbr;
+
+	private int[] cellStart; // cuerpos de cada celda, tambien en CSR
+	private int[] cellBodies;
+	private int[] cellOf;
+
+	protected ShortRangeForceLaws(double cutoff, double skin) {
+		if(cutoff <= 0 || skin < 0) {
+			throw new IllegalArgumentException("Distancia de corte no valida");
+		}
+		this.cutoff = cutoff;
+		this.skin = skin;
+		this.refX = new double[0];
+		this.refY = new double[0];
+		this.nbrStart = new int[1];
+		this.nbr = new int[0];
+		this.cellStart = new int[0];
+		this.cellBodies = new int[0];
+		this.cellOf = new int[0];
+	}
+
+	/*
+	 * Factor w de la fuerza sobre i debida a j, que es w*(pj - pi) (w > 0 si
+	 * se atraen). Solo se llama con r2 < cutoff^2; sobre j se aplica la fuerza
+	 * opuesta.
+	 */
+	protected abstract double pairForce(double r2, double mi, double mj);
+
+	@Override
+	public void apply(BodyStore bs) {
+		int n = bs.size;
+		if(builtFor != bs || builtSize != n || movedTooMuch(bs)) {
+			build(bs);
+		}
+
+		double[] px = bs.px, py = bs.py, m = bs.mass, fx = bs.fx, fy = bs.fy;
+		boolean[] tr = bs.tracer;
+		double rc2 = cutoff * cutoff;
+		for(int i = 0; i < n; i++) {
+			double xi = px[i], yi = py[i], mi = m[i];
+			boolean ti = tr[i];
+			double fxi = 0, fyi = 0;
+			for(int k = nbrStart[i]; k < nbrStart[i + 1]; k++) {
+				int j = nbr[k];
+				double dx = px[j] - xi;
+				double dy = py[j] - yi;
+				double r2 = dx*dx + dy*dy;
+				// un trazador recibe la fuerza pero no la ejerce
+				if(r2 < rc2 && !(ti && tr[j])) {
+					double w = pairForce(r2, mi, m[j]);
+					if(!tr[j]) {
+						fxi += w * dx;
+						fyi += w * dy;
+					}
+					if(!ti) {
+						fx[j] -= w * dx;
+						fy[j] -= w * dy;
+					}
+				}
+			}
+			fx[i] += fxi;
+			fy[i] += fyi;
+		}
+	}
+
+	private boolean movedTooMuch(BodyStore bs) {
+		double lim = skin * skin / 4;
+		for(int i = 0; i < bs.size; i++) {
+			double dx = bs.px[i] - refX[i];
+			double dy = bs.py[i] - refY[i];
+			if(dx*dx + dy*dy > lim) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void build(BodyStore bs) {
+		int n = bs.size;
+		double[] px = bs.px, py = bs.py;
+		builtFor = bs;
+		builtSize = n;
+		if(refX.length < n) {
+			int cap = Math.max(n, 2 * refX.length);
+			refX = new double[cap];
+			refY = new double[cap];
+			cellOf = new int[cap];
+			cellBodies = new int[cap];
+			nbrStart = new int[cap + 1];
+		}
+		System.arraycopy(px, 0, refX, 0, n);
+		System.arraycopy(py, 0, refY, 0, n);
+		if(n == 0) {
+			nbrStart[0] = 0;
+			return;
+		}
+
+		double minX = px[0], maxX = px[0], minY = py[0], maxY = py[0];
+		for(int i = 1; i < n; i++) {
+			minX = Math.min(minX, px[i]);
+			maxX = Math.max(maxX, px[i]);
+			minY = Math.min(minY, py[i]);
+			maxY = Math.max(maxY, py[i]);
+		}
+
+		// celdas de lado >= cutoff + skin, y no mas de unas 2n celdas (ni de
+		// 2^15 por lado) aunque los cuerpos esten muy dispersos
+		double range = cutoff + skin;
+		double size = range;
+		double area = (maxX - minX) * (maxY - minY);
+		if(area / (size * size) > 2.0 * n) {
+			size = Math.sqrt(area / (2.0 * n));
+		}
+		size = Math.max(size, Math.max(maxX - minX, maxY - minY) / (1 << 15));
+		int nx = (int) ((maxX - minX) / size) + 1;
+		int ny = (int) ((maxY - minY) / size) + 1;
+		int cells = nx * ny;
+		if(cellStart.length < cells + 1) {
+			cellStart = new int[Math.max(cells + 1, 2 * cellStart.length)];
+		}
+
+		for(int c = 0; c <= cells; c++) {
+			cellStart[c] = 0;
+		}
+		for(int i = 0; i < n; i++) {
+			int cx = Math.min(nx - 1, (int) ((px[i] - minX) / size));
+			int cy = Math.min(ny - 1, (int) ((py[i] - minY) / size));
+			cellOf[i] = cy * nx + cx;
+			cellStart[cellOf[i] + 1]++;
+		}
+		for(int c = 0; c < cells; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		// cellStart[c] avanza al colocar cada cuerpo y al final queda en el inicio de c+1
+		for(int i = 0; i < n; i++) {
+			cellBodies[cellStart[cellOf[i]]++] = i;
+		}
+		for(int c = cells; c > 0; c--) {
+			cellStart[c] = cellStart[c - 1];
+		}
+		cellStart[0] = 0;
+
+		double r2max = range * range;
+		int k = 0;
+		for(int i = 0; i < n; i++) {
+			nbrStart[i] = k;
+			int c = cellOf[i];
+			int cx = c % nx, cy = c / nx;
+			for(int yy = Math.max(0, cy - 1); yy <= Math.min(ny - 1, cy + 1); yy++) {
+				for(int xx = Math.max(0, cx - 1); xx <= Math.min(nx - 1, cx + 1); xx++) {
+					int cc = yy * nx + xx;
+					for(int t = cellStart[cc]; t < cellStart[cc + 1]; t++) {
+						int j = cellBodies[t];
+						if(j > i) {
+							double dx = px[j] - px[i];
+							double dy = py[j] - py[i];
+							if(dx*dx + dy*dy < r2max) {
+								if(k == nbr.length) {
+									int[] aux = new int[Math.max(16, 2 * nbr.length)];
+									System.arraycopy(nbr, 0, aux, 0, k);
+									nbr = aux;
+								}
+								nbr[k++] = j;
+							}
+						}
+					}
+				}
+			}
+		}
+		nbrStart[n] = k;
+	}
+}
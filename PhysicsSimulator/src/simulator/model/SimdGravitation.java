@@ -0,0 +1,116 @@
+package simulator.model;
+
+/*
+ * Ley de gravitacion universal con el bucle interior vectorizado con la API
+ * de vectores de Java (jdk.incubator.vector): cada cuerpo suma las fuerzas de
+ * varios cuerpos a la vez, leyendo directamente los arrays del almacen.
+ *
+ * El nucleo vectorial (SimdGravityKernel) esta en src-simd, que solo se
+ * compila con JDK 17 o posterior, y para usarlo la JVM tiene que arrancar con
+ * --add-modules jdk.incubator.vector (simulator.sh lo anade). Si no esta la
+ * clase o el modulo se calcula igual que nlug.
+ *
+ * Cada cuerpo recorre todos los demas (no se aprovecha la tercera ley, que
+ * obligaria a repartir las fuerzas de cada vector entre varios cuerpos), asi
+ * que en modo paralelo cada tarea calcula solo sus cuerpos. Los resultados
+ * no coinciden bit a bit con nlug porque las sumas se hacen en otro orden.
+ * Si hay trazadores, las fuentes se copian antes a arrays seguidos.
+ */
+public class SimdGravitation implements ForceLaws {
+
+	private static final String SIMD_KERNEL = "simulator.model.SimdGravityKernel";
+
+	private double G;
+	private GravityKernel kernel; // null si no se ha podido cargar
+	private NewtonUniversalGravitation scalar;
+
+	private double[] sx; // fuentes cuando hay trazadores
+	private double[] sy;
+	private double[] sm;
+
+	public SimdGravitation(double g) {
+		G = g;
+		kernel = createKernel();
+		scalar = new NewtonUniversalGravitation(g);
+		sx = new double[0];
+		sy = new double[0];
+		sm = new double[0];
+	}
+
+	private static GravityKernel createKernel() {
+		try {
+			return (GravityKernel) Class.forName(SIMD_KERNEL).getDeclaredConstructor().newInstance();
+		}
+		catch(ReflectiveOperationException | LinkageError e) {
+			// sin la clase (compilado con JDK 8) o sin el modulo
+			return null;
+		}
+	}
+
+	@Override
+	public void apply(BodyStore bs) {
+		if(kernel == null) {
+			scalar.apply(bs);
+		}
+		else {
+			int ns = sources(bs);
+			double[] x = bs.tracers > 0 ? sx : bs.px;
+			double[] y = bs.tracers > 0 ? sy : bs.py;
+			double[] m = bs.tracers > 0 ? sm : bs.mass;
+			if(bs.isParallel()) {
+				bs.forEachRange((from, to) -> kernel.forces(G, x, y, m, ns, bs, from, to));
+			}
+			else {
+				kernel.forces(G, x, y, m, ns, bs, 0, bs.size);
+			}
+		}
+	}
+
+	@Override
+	public void apply(BodyStore bs, int[] active, int count) {
+		if(kernel == null) {
+			scalar.apply(bs, active, count);
+			return;
+		}
+		int ns = sources(bs);
+		double[] x = bs.tracers > 0 ? sx : bs.px;
+		double[] y = bs.tracers > 0 ? sy : bs.py;
+		double[] m = bs.tracers > 0 ? sm : bs.mass;
+		for(int k = 0; k < count; k++) {
+			int i = active[k];
+			bs.fx[i] = 0;
+			bs.fy[i] = 0;
+			kernel.forces(G, x, y, m, ns, bs, i, i + 1);
+		}
+	}
+
+	// numero de fuentes; si hay trazadores las copia a sx, sy, sm
+	private int sources(BodyStore bs) {
+		if(bs.tracers == 0) {
+			return bs.size;
+		}
+		int ns = bs.sourceCount;
+		if(sx.length < ns) {
+			sx = new double[Math.max(ns, 2 * sx.length)];
+			sy = new double[sx.length];
+			sm = new double[sx.length];
+		}
+		for(int k = 0; k < ns; k++) {
+			int j = bs.sources[k];
+			sx[k] = bs.px[j];
+			sy[k] = bs.py[j];
+			sm[k] = bs.mass[j];
+		}
+		return ns;
+	}
+
+	public boolean isVectorized() {
+		return kernel != null;
+	}
+
+	public String toString()
+	{
+		return "Newton's Universal Gravitation (" + (isVectorized() ? "SIMD, " + kernel.lanes() + " lanes" : "scalar fallback")
+				+ ") with G=" + this.G;
+	}
+}
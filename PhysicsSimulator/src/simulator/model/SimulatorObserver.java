@@ -7,6 +7,9 @@ public interface SimulatorObserver {
 	public void onRegister(List<Body> bodies, double time, double dt, String fLawsDesc);
 	public void onReset(List<Body> bodies, double time, double dt, String fLawsDesc);
 	public void onBodyAdded(List<Body> bodies, Body b);
+	public void onBodiesAdded(List<Body> bodies, List<Body> added);
+	public void onBodyRemoved(List<Body> bodies, Body b);
+	public void onBodiesRemoved(List<Body> bodies, List<Body> removed);
 	public void onAdvance(List<Body> bodies, double time);
 	public void onDeltaTimeChanged(double dt);
 	public void onForceLawsChanged(String fLawsDesc);
@@ -0,0 +1,63 @@
+package simulator.model;
+
+/*
+ * Base de los integradores simplecticos, formados por pasos kick-drift-kick
+ * (velocity Verlet). Un paso KDK termina con las fuerzas de las posiciones
+ * finales en el almacen, que sirven para empezar el siguiente sin volver a
+ * llamar a las leyes de fuerza.
+ */
+public abstract class SymplecticIntegrator implements Integrator {
+
+	private BodyStore.RangeTask kick;
+	private BodyStore.RangeTask drift;
+	private BodyStore bs;
+	private double h;
+
+	protected SymplecticIntegrator() {
+		// v = v + a*h
+		kick = (from, to) -> {
+			for(int i = from; i < to; i++) {
+				if(bs.mass[i] != 0) {
+					bs.vx[i] = bs.vx[i] + bs.fx[i] * (1.0/bs.mass[i]) * h;
+					bs.vy[i] = bs.vy[i] + bs.fy[i] * (1.0/bs.mass[i]) * h;
+				}
+			}
+		};
+		// p = p + v*h
+		drift = (from, to) -> {
+			for(int i = from; i < to; i++) {
+				bs.px[i] = bs.px[i] + bs.vx[i] * h;
+				bs.py[i] = bs.py[i] + bs.vy[i] * h;
+			}
+		};
+	}
+
+	// un paso de velocity Verlet de duracion dt
+	protected void kickDriftKick(BodyStore bs, ForceLaws fl, double dt) {
+		if(!bs.forcesValid) {
+			forces(bs, fl);
+		}
+		run(bs, kick, dt / 2);
+		run(bs, drift, dt);
+		forces(bs, fl);
+		run(bs, kick, dt / 2);
+	}
+
+	// lo que no es movimiento (perdida de masa), una vez por paso completo
+	protected void endStep(BodyStore bs, double dt) {
+		bs.advanceTime(dt);
+	}
+
+	private void forces(BodyStore bs, ForceLaws fl) {
+		bs.resetForces();
+		fl.apply(bs);
+		bs.forcesValid = true;
+		bs.forcesAge = 0;
+	}
+
+	private void run(BodyStore bs, BodyStore.RangeTask task, double h) {
+		this.bs = bs;
+		this.h = h;
+		bs.forEachRange(task);
+	}
+}
@@ -0,0 +1,196 @@
+package simulator.model;
+
+/*
+ * Ley de gravitacion universal con suma directa por bloques: los cuerpos se
+ * agrupan en bloques de tile cuerpos seguidos y se calculan las parejas de
+ * un bloque de destino con un bloque de origen cada vez. Las posiciones,
+ * masas y fuerzas de los dos bloques caben en la cache L1 (con el tamano por
+ * defecto unos 20 KB), asi que cada cuerpo se trae de memoria una vez por
+ * bloque de destino en lugar de una vez por cuerpo.
+ *
+ * Como en nlug cada pareja se calcula una vez y se aplica a los dos cuerpos;
+ * en modo paralelo cada tarea calcula sus cuerpos recorriendo los bloques de
+ * todos los demas. Las sumas se hacen en otro orden que en nlug, asi que los
+ * resultados coinciden con los de nlug salvo por el redondeo. Con
+ * trazadores las fuentes (bs.sources) se copian seguidas a arrays propios y
+ * los bloques de origen son bloques de esa lista: las parejas entre fuentes
+ * se calculan una vez y cada trazador solo recorre las fuentes, O(S*N) como
+ * en nlug.
+ */
+public class TiledGravitation implements ForceLaws {
+
+	private double G;
+	private int tile;
+
+	// las fuentes seguidas, cuando hay trazadores, y sus fuerzas
+	private double[] sx;
+	private double[] sy;
+	private double[] sm;
+	private double[] sfx;
+	private double[] sfy;
+
+	public TiledGravitation(double g, int tile) {
+		if(tile < 1) {
+			throw new IllegalArgumentException("El tamano de bloque tiene que ser positivo");
+		}
+		this.G = g;
+		this.tile = tile;
+		this.sx = new double[0];
+		this.sy = new double[0];
+		this.sm = new double[0];
+		this.sfx = new double[0];
+		this.sfy = new double[0];
+	}
+
+	@Override
+	public void apply(BodyStore bs) {
+		if(bs.tracers > 0) {
+			applyWithTracers(bs);
+		}
+		else if(bs.isParallel()) {
+			bs.forEachRange((from, to) -> applyRange(bs, from, to, bs.px, bs.py, bs.mass, bs.size, false));
+		}
+		else {
+			applySymmetric(bs.px, bs.py, bs.mass, bs.fx, bs.fy, bs.size);
+		}
+	}
+
+	private void applyWithTracers(BodyStore bs) {
+		int ns = pack(bs);
+		if(bs.isParallel()) {
+			bs.forEachRange((from, to) -> applyRange(bs, from, to, sx, sy, sm, ns, false));
+		}
+		else {
+			applySymmetric(sx, sy, sm, sfx, sfy, ns);
+			for(int b = 0; b < ns; b++) {
+				bs.fx[bs.sources[b]] += sfx[b];
+				bs.fy[bs.sources[b]] += sfy[b];
+			}
+			applyRange(bs, 0, bs.size, sx, sy, sm, ns, true);
+		}
+	}
+
+	// copia las fuentes a sx, sy y sm; devuelve cuantas son
+	private int pack(BodyStore bs) {
+		int ns = bs.sourceCount;
+		if(sx.length < ns) {
+			int cap = Math.max(ns, 2 * sx.length);
+			sx = new double[cap];
+			sy = new double[cap];
+			sm = new double[cap];
+			sfx = new double[cap];
+			sfy = new double[cap];
+		}
+		for(int b = 0; b < ns; b++) {
+			int j = bs.sources[b];
+			sx[b] = bs.px[j];
+			sy[b] = bs.py[j];
+			sm[b] = bs.mass[j];
+			sfx[b] = 0;
+			sfy[b] = 0;
+		}
+		return ns;
+	}
+
+	// cada pareja de los n primeros cuerpos de los arrays una vez
+	private void applySymmetric(double[] px, double[] py, double[] m, double[] fx, double[] fy, int n) {
+		for(int i0 = 0; i0 < n; i0 += tile) {
+			int i1 = Math.min(n, i0 + tile);
+			// las parejas dentro del bloque y luego con cada bloque posterior
+			for(int j0 = i0; j0 < n; j0 += tile) {
+				int j1 = Math.min(n, j0 + tile);
+				for(int i = i0; i < i1; i++) {
+					if(m[i] != 0) {
+						double xi = px[i], yi = py[i], mi = m[i];
+						double fxi = 0, fyi = 0;
+						for(int j = Math.max(j0, i + 1); j < j1; j++) {
+							if(m[j] != 0) {
+								double dx = px[j] - xi;
+								double dy = py[j] - yi;
+								double w = forceIJ(mi, m[j], dx*dx + dy*dy);
+
+								fxi += w * dx;
+								fyi += w * dy;
+								fx[j] -= w * dx;
+								fy[j] -= w * dy;
+							}
+						}
+						fx[i] += fxi;
+						fy[i] += fyi;
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void apply(BodyStore bs, int[] active, int count) {
+		for(int k = 0; k < count; k++) {
+			int i = active[k];
+			bs.fx[i] = 0;
+			bs.fy[i] = 0;
+		}
+		if(bs.tracers > 0) {
+			int ns = pack(bs);
+			for(int k = 0; k < count; k++) {
+				applyRange(bs, active[k], active[k] + 1, sx, sy, sm, ns, false);
+			}
+		}
+		else {
+			for(int k = 0; k < count; k++) {
+				applyRange(bs, active[k], active[k] + 1, bs.px, bs.py, bs.mass, bs.size, false);
+			}
+		}
+	}
+
+	/*
+	 * Fuerzas sobre los cuerpos [from, to) (solo los trazadores si
+	 * onlyTracers) de los n primeros de ox, oy y om, que son las posiciones y
+	 * masas de todos los cuerpos o solo las de las fuentes, bloque a bloque.
+	 * La pareja de un cuerpo consigo mismo no suma nada porque d2 es 0.
+	 */
+	private void applyRange(BodyStore bs, int from, int to, double[] ox, double[] oy, double[] om, int n, boolean onlyTracers) {
+		double[] px = bs.px, py = bs.py, m = bs.mass, fx = bs.fx, fy = bs.fy;
+		boolean[] tr = bs.tracer;
+
+		for(int i0 = from; i0 < to; i0 += tile) {
+			int i1 = Math.min(to, i0 + tile);
+			for(int j0 = 0; j0 < n; j0 += tile) {
+				int j1 = Math.min(n, j0 + tile);
+				for(int i = i0; i < i1; i++) {
+					if(m[i] != 0 && (tr[i] || !onlyTracers)) {
+						double xi = px[i], yi = py[i], mi = m[i];
+						double fxi = 0, fyi = 0;
+						for(int j = j0; j < j1; j++) {
+							if(om[j] != 0) {
+								double dx = ox[j] - xi;
+								double dy = oy[j] - yi;
+								double w = forceIJ(mi, om[j], dx*dx + dy*dy);
+
+								fxi += w * dx;
+								fyi += w * dy;
+							}
+						}
+						fx[i] += fxi;
+						fy[i] += fyi;
+					}
+				}
+			}
+		}
+	}
+
+	// G*mi*mj/d^3, el factor por el que se multiplica el vector entre los cuerpos
+	private double forceIJ(double mi, double mj, double d2) {
+		if(d2 == 0.0) {
+			return 0.0;
+		}
+		double inv = 1.0 / Math.sqrt(d2);
+
+		return G * (mi*mj) * (inv*inv*inv);
+	}
+
+	public String toString()
+	{
+		return "Newton's Universal Gravitation (tiled, " + this.tile + " bodies per tile) with G=" + this.G;
+	}
+}
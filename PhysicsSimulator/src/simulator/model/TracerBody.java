@@ -0,0 +1,22 @@
+package simulator.model;
+
+import simulator.misc.Vector2D;
+
+/*
+ * Particula de prueba: se mueve con las fuerzas de los cuerpos normales pero
+ * no atrae a nadie, ni a otros trazadores. Su masa solo sirve para la fuerza
+ * que se muestra (la aceleracion no depende de ella). Las leyes de fuerza
+ * solo usan como fuentes los cuerpos de BodyStore.sources, asi que con S
+ * cuerpos normales y N en total nlug cuesta O(S*N) en lugar de O(N^2).
+ */
+public class TracerBody extends Body {
+
+	public TracerBody(String id, Vector2D v, Vector2D p, double m) {
+		super(id, v, p, m);
+	}
+
+	@Override
+	public boolean isTracer() {
+		return true;
+	}
+}
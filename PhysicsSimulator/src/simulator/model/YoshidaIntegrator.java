@@ -0,0 +1,25 @@
+package simulator.model;
+
+/*
+ * Integrador de Yoshida de cuarto orden: tres pasos de velocity Verlet de
+ * duraciones w1*dt, w0*dt y w1*dt (w0 es negativo). Llama tres veces a las
+ * leyes de fuerza por paso.
+ */
+public class YoshidaIntegrator extends SymplecticIntegrator {
+
+	private static final double CBRT2 = Math.cbrt(2.0);
+	private static final double W1 = 1.0 / (2.0 - CBRT2);
+	private static final double W0 = -CBRT2 / (2.0 - CBRT2);
+
+	@Override
+	public void step(BodyStore bs, ForceLaws fl, double dt) {
+		kickDriftKick(bs, fl, W1 * dt);
+		kickDriftKick(bs, fl, W0 * dt);
+		kickDriftKick(bs, fl, W1 * dt);
+		endStep(bs, dt);
+	}
+
+	public String toString() {
+		return "Yoshida (4th order)";
+	}
+}
@@ -64,6 +64,24 @@ public class BodiesTableModel extends AbstractTableModel implements SimulatorObs
 		this.fireTableStructureChanged();
 	}
 
+	@Override
+	public void onBodiesAdded(List<Body> bodies, List<Body> added) {
+		_bodies = bodies;
+		this.fireTableStructureChanged();
+	}
+
+	@Override
+	public void onBodyRemoved(List<Body> bodies, Body b) {
+		_bodies = bodies;
+		this.fireTableStructureChanged();
+	}
+
+	@Override
+	public void onBodiesRemoved(List<Body> bodies, List<Body> removed) {
+		_bodies = bodies;
+		this.fireTableStructureChanged();
+	}
+
 	@Override
 	public void onAdvance(List<Body> bodies, double time) {
 		_bodies = bodies;
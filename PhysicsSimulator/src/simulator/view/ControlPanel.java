@@ -39,7 +39,9 @@ import simulator.model.SimulatorObserver;
 public class ControlPanel extends JPanel implements SimulatorObserver {
 	
 	private Controller _ctrl;
-	private boolean _stopped;
+	private volatile boolean _stopped; // lo cambia el boton stop mientras corre el hilo de la simulacion
+	private Thread _simThread; // hilo de la simulacion hasta que termina, solo se usa en el hilo de Swing
+	private StatusBar _statusBar; // donde se muestran los estados saltados, puede ser null
 	private JLabel _steps;
 	private JLabel _delta;
     private JTextField txtCajaDeTextoD;
@@ -90,7 +92,7 @@ public class ControlPanel extends JPanel implements SimulatorObserver {
 				fc.setCurrentDirectory(workingDirectory);
 				
 				int returnVal = fc.showOpenDialog(null);
-				if (returnVal == JFileChooser.APPROVE_OPTION) {
+				if (returnVal == JFileChooser.APPROVE_OPTION && _simThread == null) {
 				 File file = fc.getSelectedFile();
 				 System.out.println(file.getAbsolutePath());
 					try {
@@ -128,11 +130,19 @@ public class ControlPanel extends JPanel implements SimulatorObserver {
 
 			@Override
 			public void actionPerformed(ActionEvent arg0) {  
+				if(_simThread != null) {
+					return;
+				}
 				try {
 					disabledButton();
 					_stopped = false;
 					_ctrl.setDeltaTime(Double.parseDouble(txtCajaDeTextoD.getText()));
-					run_sim((Integer)_stepsSpinner.getValue());
+					if(_ctrl.hasAsyncObservers()) {
+						run_sim_thread((Integer)_stepsSpinner.getValue());
+					}
+					else {
+						run_sim((Integer)_stepsSpinner.getValue());
+					}
 				}catch(ClassCastException ex) {
 					JOptionPane.showMessageDialog(runbutton, "No se puede realizar esta accin", "Error", JOptionPane.ERROR_MESSAGE);
 					_stopped = true;
@@ -150,7 +160,10 @@ public class ControlPanel extends JPanel implements SimulatorObserver {
 			public void actionPerformed(ActionEvent arg0) {  
 				try {
 					_stopped = true;
-					enabledButtons();
+					// el hilo de la simulacion activa los botones cuando termina
+					if(_simThread == null) {
+						enabledButtons();
+					}
 				}catch(IllegalArgumentException ex) {
 					JOptionPane.showMessageDialog(stopbutton, ex);
 				}
@@ -218,6 +231,52 @@ public class ControlPanel extends JPanel implements SimulatorObserver {
 		}
 	}
 	
+	/*
+	 * Con observadores asincronos los pasos se dan en un hilo aparte, sin
+	 * esperar a que las vistas se repinten; las vistas reciben sus eventos en
+	 * el hilo de Swing y se saltan los estados que no les da tiempo a pintar.
+	 * Hasta que el hilo termina no se puede volver a ejecutar ni cargar otro
+	 * fichero, asi que nunca hay dos hilos dando pasos.
+	 */
+	private void run_sim_thread(int n) {
+		_simThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					for(int i = 0; i < n && !_stopped; i++) {
+						_ctrl.runGUI(1);
+					}
+				} catch (Exception e) {
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							JOptionPane.showMessageDialog(runbutton, e);
+						}
+					});
+				}
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						// los eventos de las vistas estan antes en la cola de Swing,
+						// asi que aqui ya estan todos entregados o descartados
+						if(_statusBar != null) {
+							_statusBar.showDroppedEvents(_ctrl.getDroppedEvents());
+						}
+						_simThread = null;
+						_stopped = true;
+						enabledButtons();
+					}
+				});
+			}
+		}, "simulation");
+		_simThread.setDaemon(true);
+		_simThread.start();
+	}
+	
+	public void setStatusBar(StatusBar sb) {
+		_statusBar = sb;
+	}
+	
 	protected void select_forcelaw() throws JSONException, Exception {
 		if(_dialog == null) {
 			_dialog = new LawsSelectionDialog((Frame) SwingUtilities.getWindowAncestor(this),_ctrl.getForceLawsInfo());
@@ -261,6 +320,21 @@ public class ControlPanel extends JPanel implements SimulatorObserver {
 		
 	}
 
+	@Override
+	public void onBodiesAdded(List<Body> bodies, List<Body> added) {
+		
+	}
+
+	@Override
+	public void onBodyRemoved(List<Body> bodies, Body b) {
+		
+	}
+
+	@Override
+	public void onBodiesRemoved(List<Body> bodies, List<Body> removed) {
+		
+	}
+
 	@Override
 	public void onAdvance(List<Body> bodies, double time) {
 		
@@ -24,6 +24,7 @@ import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -153,8 +154,9 @@ public class LawsSelectionDialog extends JDialog{
 			Set<String> keys = data.keySet();
 			int i=0;
 			for (String k:keys) {
-				if(tieneLetra(_data[i][1])) {
-					throw new Exception("JSONObject['" + k + "'] is not a number");
+				String tipo = tipoEsperado(data.getString(k));
+				if(!esValorJSON(_data[i][1], tipo)) {
+					throw new Exception("JSONObject['" + k + "'] is not " + (tipo == null ? "a valid JSON value" : tipo));
 				}
 				else if (!_data[i][1].isEmpty()) {
 					s.append('"');
@@ -175,14 +177,52 @@ public class LawsSelectionDialog extends JDialog{
 			return s.toString();
 		}
 		
-		private boolean tieneLetra(String s) {
-			for(int i=0;i<s.length();i++) {
-				Character c = s.charAt(i);
-				if(Character.isAlphabetic(c)) {
-					return true;
+		// el tipo que pide la descripcion del parametro ("a number", "a json
+		// list of 2 numbers"...), null si no dice ninguno
+		private String tipoEsperado(String desc) {
+			if(desc.contains("list of 2 numbers")) {
+				return "a list of 2 numbers";
+			}
+			if(desc.contains("list")) {
+				return "a list";
+			}
+			if(desc.contains("number") || desc.contains("integer") || desc.contains("power of 2")) {
+				return "a number";
+			}
+			return null;
+		}
+
+		// numeros (tambien con exponente, 1e10), listas como la de composite y
+		// textos entre comillas; "" es no dar valor. El parser de JSONObject
+		// admite palabras sin comillas (abc) como texto, asi que se miran aparte
+		private boolean esValorJSON(String s, String tipo) {
+			if(s.isEmpty()) {
+				return true;
+			}
+			Object v;
+			try {
+				v = new JSONObject("{\"v\":" + s + "}").get("v");
+			}
+			catch(JSONException e) {
+				return false;
+			}
+			if(v instanceof String && !s.trim().startsWith("\"")) {
+				return false;
+			}
+			if("a list of 2 numbers".equals(tipo)) {
+				if(!(v instanceof JSONArray) || ((JSONArray) v).length() != 2) {
+					return false;
 				}
+				JSONArray l = (JSONArray) v;
+				return l.get(0) instanceof Number && l.get(1) instanceof Number;
 			}
-			return false;
+			if("a list".equals(tipo)) {
+				return v instanceof JSONArray;
+			}
+			if("a number".equals(tipo)) {
+				return v instanceof Number;
+			}
+			return true;
 		}
 	}
 
@@ -28,6 +28,7 @@ public class MainWindow extends JFrame {
 		
 		ControlPanel cp = new ControlPanel(_ctrl);
 		StatusBar sb = new StatusBar(_ctrl);
+		cp.setStatusBar(sb);
 		cp.setLayout( new BoxLayout(cp, BoxLayout.Y_AXIS));
 		sb.setLayout( new BoxLayout(sb, BoxLayout.Y_AXIS));
 		mainPanel.add(cp, BorderLayout.PAGE_START);
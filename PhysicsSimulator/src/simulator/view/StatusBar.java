@@ -4,6 +4,7 @@ import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.FlowLayout;
 import java.util.List;
+import java.util.Map;
 import javax.swing.BorderFactory;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -17,6 +18,8 @@ public class StatusBar extends JPanel implements SimulatorObserver {
 	private JLabel _currTime; // for current time
 	private JLabel _currLaws; // for gravity laws
 	private JLabel _numOfBodies; // for number of bodies
+	private JPanel _skippedView; // estados saltados por cada vista, solo con -async
+	private JLabel _skipped;
 	
 	public StatusBar(Controller ctrl) {
 		initGUI();
@@ -49,8 +52,29 @@ public class StatusBar extends JPanel implements SimulatorObserver {
 	    lawsView.add(_currLaws);
 	    toolbar.add(lawsView, BorderLayout.EAST);
 	    
+	    _skippedView = new JPanel();
+	    JLabel skipped = new JLabel("Skipped: ");
+	    _skippedView.add(skipped);
+	    _skipped = new JLabel();
+	    _skippedView.add(_skipped);
+	    _skippedView.setVisible(false);
+	    toolbar.add(_skippedView);
+	    
 		this.add(toolbar);
 	}
+	
+	// estados que se ha saltado cada vista en la ejecucion en otro hilo
+	public void showDroppedEvents(Map<SimulatorObserver, Long> dropped) {
+		StringBuilder s = new StringBuilder();
+		for(Map.Entry<SimulatorObserver, Long> d: dropped.entrySet()) {
+			if(s.length() > 0) {
+				s.append(", ");
+			}
+			s.append(d.getKey().getClass().getSimpleName()).append(' ').append(d.getValue());
+		}
+		_skipped.setText(s.toString());
+		_skippedView.setVisible(true);
+	}
 
 	@Override
 	public void onRegister(List<Body> bodies, double time, double dt, String fLawsDesc) {
@@ -70,6 +94,21 @@ public class StatusBar extends JPanel implements SimulatorObserver {
 		_numOfBodies.setText(String.valueOf(bodies.size()));
 	}
 
+	@Override
+	public void onBodiesAdded(List<Body> bodies, List<Body> added) {
+		_numOfBodies.setText(String.valueOf(bodies.size()));
+	}
+
+	@Override
+	public void onBodyRemoved(List<Body> bodies, Body b) {
+		_numOfBodies.setText(String.valueOf(bodies.size()));
+	}
+
+	@Override
+	public void onBodiesRemoved(List<Body> bodies, List<Body> removed) {
+		_numOfBodies.setText(String.valueOf(bodies.size()));
+	}
+
 	@Override
 	public void onAdvance(List<Body> bodies, double time) {
 		_currTime.setText(String.valueOf(time));
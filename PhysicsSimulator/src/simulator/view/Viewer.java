@@ -18,7 +18,7 @@ import javax.swing.JComponent;
 import javax.swing.border.TitledBorder;
 
 import simulator.control.Controller;
-import simulator.misc.Vector2D;
+import simulator.misc.MutableVector2D;
 import simulator.model.Body;
 import simulator.model.SimulatorObserver;
 
@@ -29,6 +29,7 @@ public class Viewer extends JComponent implements SimulatorObserver {
 	private List<Body> _bodies;
 	private boolean _showHelp;
 	private boolean _showVectors;
+	private MutableVector2D _v; // se reutiliza al pintar cada cuerpo
 	
 	Viewer(Controller ctrl) {
 		initGUI();
@@ -45,6 +46,7 @@ public class Viewer extends JComponent implements SimulatorObserver {
 		setPreferredSize(new Dimension(800, 600));
 		
 		_bodies = new ArrayList<>();
+		_v = new MutableVector2D();
 		_scale = 1.0;
 		_showHelp = true;
 		_showVectors = true;
@@ -139,16 +141,19 @@ public class Viewer extends JComponent implements SimulatorObserver {
 		// draw bodies (with vectors if _showVectors is true)
 		for(Body b:_bodies) {
 			gr.setColor(Color.blue);
-			int coorBodyX = _centerX + (int) (b.getPosition().getX()/_scale);
-			int coorBodyY = _centerY - (int) (b.getPosition().getY()/_scale);
+			b.getPosition(_v);
+			int coorBodyX = _centerX + (int) (_v.getX()/_scale);
+			int coorBodyY = _centerY - (int) (_v.getY()/_scale);
 			gr.fillOval(coorBodyX,coorBodyY, 5, 5);
 			gr.setColor(Color.black);
 			gr.drawString(b.getId(), coorBodyX, coorBodyY);
 			if(_showVectors) {
-				drawLineWithArrow(gr, coorBodyX, coorBodyY,coorBodyX + (int) (b.getForce().direction().scale(20).getX()), 
-						coorBodyY - (int) (b.getForce().direction().scale(20).getY()), 5, 5, Color.red, Color.red);
-				drawLineWithArrow(gr, coorBodyX, coorBodyY, coorBodyX + (int) (b.getVelocity().direction().scale(20).getX()),
-						coorBodyY - (int)(b.getVelocity().direction().scale(20).getY()), 5, 5, Color.green, Color.green);
+				b.getForce(_v).normalizeInPlace().scale(20);
+				drawLineWithArrow(gr, coorBodyX, coorBodyY,coorBodyX + (int) (_v.getX()), 
+						coorBodyY - (int) (_v.getY()), 5, 5, Color.red, Color.red);
+				b.getVelocity(_v).normalizeInPlace().scale(20);
+				drawLineWithArrow(gr, coorBodyX, coorBodyY, coorBodyX + (int) (_v.getX()),
+						coorBodyY - (int)(_v.getY()), 5, 5, Color.green, Color.green);
 			}
 		}
 		
@@ -165,9 +170,9 @@ public class Viewer extends JComponent implements SimulatorObserver {
 	private void autoScale() {
 		double max = 1.0;
 		for (Body b : _bodies) {
-			Vector2D p = b.getPosition();
-			max = Math.max(max, Math.abs(p.getX()));
-			max = Math.max(max, Math.abs(p.getY()));
+			b.getPosition(_v);
+			max = Math.max(max, Math.abs(_v.getX()));
+			max = Math.max(max, Math.abs(_v.getY()));
 		}
 		
 		double size = Math.max(1.0, Math.min(getWidth(), getHeight()));
@@ -221,6 +226,25 @@ public class Viewer extends JComponent implements SimulatorObserver {
 		repaint();
 	}
 
+	@Override
+	public void onBodiesAdded(List<Body> bodies, List<Body> added) {
+		_bodies = bodies;
+		autoScale();
+		repaint();
+	}
+
+	@Override
+	public void onBodyRemoved(List<Body> bodies, Body b) {
+		_bodies = bodies;
+		repaint();
+	}
+
+	@Override
+	public void onBodiesRemoved(List<Body> bodies, List<Body> removed) {
+		_bodies = bodies;
+		repaint();
+	}
+
 	@Override
 	public void onAdvance(List<Body> bodies, double time) {
 		_bodies = bodies;
@@ -0,0 +1,105 @@
+package simulator.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import simulator.misc.Vector2D;
+import simulator.model.Body;
+import simulator.model.NewtonUniversalGravitation;
+import simulator.model.PhysicsSimulator;
+
+/*
+ * Al quitar un cuerpo el almacen pone el ultimo en su sitio, pero los
+ * escritores tienen que seguir sacando los cuerpos en el orden de getState()
+ * (el de insercion); si no, una salida con -esc no valida contra si misma.
+ */
+public class StateWriterTest {
+
+	private static final int BODIES = 6;
+	private static final int STEPS = 5;
+	// la comparacion de -eo, que tambien mira los ids en orden
+	private static final StateComparator SAME = new EpsilonEqualStates(0.0);
+
+	private PhysicsSimulator simulator() {
+		PhysicsSimulator sim = new PhysicsSimulator(new NewtonUniversalGravitation(6.67e-11), 2500);
+		List<Body> bs = new ArrayList<>();
+		for(int i = 0; i < BODIES; i++) {
+			bs.add(new Body("b" + i, new Vector2D(0, 1e3 * i), new Vector2D(1e10 * i, 5e9 * i), 1e24 * (i + 1)));
+		}
+		sim.addBodies(bs);
+		return sim;
+	}
+
+	// EpsilonEqualStates no mira si sobran cuerpos en el segundo estado
+	private void assertSame(int step, JSONObject expected, JSONObject actual) {
+		assertEquals(expected.getJSONArray("bodies").length(), actual.getJSONArray("bodies").length());
+		assertTrue("estado " + step, SAME.equal(expected, actual));
+	}
+
+	@Test
+	public void jsonWriterKeepsInsertionOrderAfterRemove() throws IOException {
+		PhysicsSimulator sim = simulator();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JSONStateWriter w = new JSONStateWriter(out);
+		List<JSONObject> expected = new ArrayList<>();
+
+		w.begin();
+		for(int s = 0; s < STEPS; s++) {
+			if(s == 1) {
+				sim.removeBody("b1");
+			}
+			if(s == 3) {
+				sim.removeBody("b3");
+			}
+			w.writeState(sim);
+			expected.add(sim.getState());
+			sim.advance();
+		}
+		w.end();
+
+		JSONArray states = new JSONObject(out.toString()).getJSONArray("states");
+		assertEquals(STEPS, states.length());
+		for(int s = 0; s < STEPS; s++) {
+			assertSame(s, expected.get(s), states.getJSONObject(s));
+		}
+	}
+
+	@Test
+	public void binaryWriterKeepsInsertionOrderAfterRemove() throws IOException {
+		PhysicsSimulator sim = simulator();
+		sim.removeBody("b2");
+		File f = File.createTempFile("states", ".bin");
+		f.deleteOnExit();
+		List<JSONObject> expected = new ArrayList<>();
+
+		try(OutputStream out = new FileOutputStream(f)) {
+			BinaryStateWriter w = new BinaryStateWriter(out);
+			w.begin();
+			for(int s = 0; s < STEPS; s++) {
+				w.writeState(sim);
+				expected.add(sim.getState());
+				sim.advance();
+			}
+			w.end();
+		}
+
+		try(BinaryStatesReader r = new BinaryStatesReader(f)) {
+			assertEquals(STEPS, r.getNumFrames());
+			for(int s = 0; s < STEPS; s++) {
+				assertSame(s, expected.get(s), r.getState(s));
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package simulator.model;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import simulator.control.Controller;
+import simulator.control.EpsilonEqualStates;
+import simulator.factories.BasicBodyBuilder;
+import simulator.factories.Builder;
+import simulator.factories.BuilderBasedFactory;
+import simulator.factories.Factory;
+import simulator.factories.MassLosingBodyBuilder;
+import simulator.misc.Vector2D;
+
+/*
+ * nlug calcula cada pareja una sola vez y aplica fuerzas opuestas; aqui se
+ * compara, paso a paso y con EpsilonEqualStates, con la ley de antes, que
+ * recorria todas las parejas ordenadas con Vector2D.
+ *
+ * EpsilonEqualStates compara con un eps absoluto y en los ejemplos las
+ * fuerzas (~1e20) y las posiciones (~1e10) son de ordenes muy distintos, asi
+ * que antes de compararlos cada magnitud (m, p, v, f) de los dos estados se
+ * divide por su maximo en el estado de referencia. Con eso EPS es un error
+ * relativo: 1e-9, muy por encima del redondeo (las diferencias no llegan a
+ * 1e-14 en 1000 pasos) y por debajo de un cambio de 1e-7 en G, que falla.
+ */
+public class NewtonUniversalGravitationTest {
+
+	private static final double G = 6.67e-11;
+	private static final double DT = 2500.0;
+	private static final int STEPS = 1000;
+	private static final double EPS = 1e-9;
+
+	private static final String[] EXAMPLES = { "ex1.2body.json", "ex2.3body.json", "ex3.4body.json", "ex4.4body.json" };
+
+	// la ley de gravitacion original: las dos fuerzas de cada pareja por separado
+	private static class AllPairsGravitation implements ForceLaws {
+		@Override
+		public void apply(BodyStore bs) {
+			for(int i = 0; i < bs.size; i++) {
+				if(bs.mass[i] != 0) {
+					Vector2D pi = new Vector2D(bs.px[i], bs.py[i]);
+					for(int j = 0; j < bs.size; j++) {
+						if(i != j) {
+							Vector2D d = new Vector2D(bs.px[j], bs.py[j]).minus(pi);
+							double fij = G * (bs.mass[i] * bs.mass[j]) / Math.pow(d.magnitude(), 2);
+							Vector2D f = d.direction().scale(fij);
+							bs.fx[i] += f.getX();
+							bs.fy[i] += f.getY();
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void matchesAllPairsLawOnExamples() throws IOException {
+		for(String ex: EXAMPLES) {
+			PhysicsSimulator expected = load(new AllPairsGravitation(), ex);
+			PhysicsSimulator actual = load(new NewtonUniversalGravitation(G), ex);
+			EpsilonEqualStates cmp = new EpsilonEqualStates(EPS);
+
+			for(int step = 0; step < STEPS; step++) {
+				JSONObject e = expected.getState();
+				JSONObject a = actual.getState();
+				assertTrue(ex + ", paso " + step, cmp.equal(scaled(e, e), scaled(a, e)));
+				expected.advance();
+				actual.advance();
+			}
+		}
+	}
+
+	private static PhysicsSimulator load(ForceLaws fl, String example) throws IOException {
+		List<Builder<Body>> builders = new ArrayList<>();
+		builders.add(new BasicBodyBuilder());
+		builders.add(new MassLosingBodyBuilder());
+		Factory<Body> bodies = new BuilderBasedFactory<Body>(builders);
+
+		PhysicsSimulator sim = new PhysicsSimulator(fl, DT);
+		try(InputStream in = new FileInputStream("resources/examples/" + example)) {
+			new Controller(sim, bodies, null).loadBodies(in);
+		}
+		return sim;
+	}
+
+	// copia de state con cada magnitud dividida por su maximo en ref
+	private static JSONObject scaled(JSONObject state, JSONObject ref) {
+		JSONArray rb = ref.getJSONArray("bodies");
+		double m = 0, p = 0, v = 0, f = 0;
+		for(int i = 0; i < rb.length(); i++) {
+			JSONObject b = rb.getJSONObject(i);
+			m = Math.max(m, Math.abs(b.getDouble("m")));
+			p = Math.max(p, norm(b.getJSONArray("p")));
+			v = Math.max(v, norm(b.getJSONArray("v")));
+			f = Math.max(f, norm(b.getJSONArray("f")));
+		}
+
+		JSONArray bodies = new JSONArray();
+		JSONArray sb = state.getJSONArray("bodies");
+		for(int i = 0; i < sb.length(); i++) {
+			JSONObject b = sb.getJSONObject(i);
+			JSONObject c = new JSONObject();
+			c.put("id", b.getString("id"));
+			c.put("m", b.getDouble("m") / nonZero(m));
+			c.put("p", scale(b.getJSONArray("p"), p));
+			c.put("v", scale(b.getJSONArray("v"), v));
+			c.put("f", scale(b.getJSONArray("f"), f));
+			bodies.put(c);
+		}
+		JSONObject j = new JSONObject();
+		j.put("time", state.getDouble("time"));
+		j.put("bodies", bodies);
+		return j;
+	}
+
+	private static double norm(JSONArray a) {
+		return Math.hypot(a.getDouble(0), a.getDouble(1));
+	}
+
+	private static JSONArray scale(JSONArray a, double s) {
+		return new Vector2D(a.getDouble(0) / nonZero(s), a.getDouble(1) / nonZero(s)).asJSONArray();
+	}
+
+	private static double nonZero(double s) {
+		return s == 0 ? 1 : s;
+	}
+}